@@ -0,0 +1,109 @@
+package com.harel.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and fails on regressions.
+ * Usage: BenchmarkGate &lt;current.json&gt; &lt;baseline.json&gt; [maxRegressionPct] [--update]
+ * With --update or "update" the current results become the baseline, with the machine they were taken
+ * on recorded next to it (&lt;baseline&gt;.machine). Without a baseline the gate fails and leaves the
+ * current results as a candidate next to them, so a baseline is only ever promoted on purpose.
+ */
+public final class BenchmarkGate {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BenchmarkGate() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkGate <current.json> <baseline.json> [maxRegressionPct] [--update]");
+            System.exit(2);
+        }
+        Path current = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double maxPct = args.length > 2 && args[2].matches("[0-9.]+") ? Double.parseDouble(args[2]) : 10.0;
+        String last = args[args.length - 1];
+        boolean update = last.equals("--update") || last.equals("update");
+
+        Map<String, Double> now = scores(current);
+        if (update) {
+            if (baseline.getParent() != null) Files.createDirectories(baseline.getParent());
+            Files.copy(current, baseline, StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(machineFile(baseline), machine() + System.lineSeparator());
+            System.out.printf("Baseline %s updated with %d benchmark(s) on %s%n", baseline, now.size(), machine());
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            Path candidate = current.resolveSibling("jmh-baseline-candidate.json");
+            Files.copy(current, candidate, StandardCopyOption.REPLACE_EXISTING);
+            System.err.printf("No benchmark baseline at %s. Results of this machine (%s) are in %s;%n"
+                    + "promote them on the reference machine with -Djmh.gate.flags=update and commit the baseline.%n",
+                    baseline, machine(), candidate);
+            System.exit(1);
+        }
+
+        Path machineFile = machineFile(baseline);
+        String recorded = Files.exists(machineFile) ? Files.readString(machineFile).trim() : "unknown machine";
+        if (!recorded.equals(machine())) {
+            System.out.printf("Note: baseline taken on %s, this run on %s; wall-time scores may not compare%n",
+                    recorded, machine());
+        }
+        Map<String, Double> base = scores(baseline);
+        int regressions = 0;
+        for (Map.Entry<String, Double> e : now.entrySet()) {
+            Double before = base.get(e.getKey());
+            if (before == null || before == 0) {
+                System.out.printf("NEW   %-60s %12.4f%n", e.getKey(), e.getValue());
+                continue;
+            }
+            // All scores are "lower is better": average time, and commands per op.
+            double pct = (e.getValue() - before) / before * 100;
+            boolean bad = pct > maxPct;
+            if (bad) regressions++;
+            System.out.printf("%s %-60s %12.4f -> %12.4f (%+.1f%%)%n",
+                    bad ? "SLOWER" : "OK    ", e.getKey(), before, e.getValue(), pct);
+        }
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, maxPct);
+            System.exit(1);
+        }
+    }
+
+    private static Path machineFile(Path baseline) {
+        return baseline.resolveSibling(baseline.getFileName() + ".machine");
+    }
+
+    /**
+     * The machine a run is on: OS, architecture, CPU count and JVM.
+     */
+    private static String machine() {
+        return String.format("%s %s, %d cpu(s), Java %s", System.getProperty("os.name"), System.getProperty("os.arch"),
+                Runtime.getRuntime().availableProcessors(), System.getProperty("java.version"));
+    }
+
+    /**
+     * Benchmark name → average time, plus name + ":commands/op" → driver round trips per operation.
+     */
+    private static Map<String, Double> scores(Path file) throws IOException {
+        Map<String, Double> scores = new HashMap<>();
+        for (JsonNode run : MAPPER.readTree(file.toFile())) {
+            String name = run.path("benchmark").asText();
+            scores.put(name, run.path("primaryMetric").path("score").asDouble());
+            JsonNode secondary = run.path("secondaryMetrics");
+            double ops = secondary.path("ops").path("score").asDouble();
+            if (ops > 0) {
+                scores.put(name + ":commands/op", secondary.path("commands").path("score").asDouble() / ops);
+            }
+        }
+        return scores;
+    }
+}
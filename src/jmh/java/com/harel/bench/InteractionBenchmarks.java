@@ -0,0 +1,109 @@
+package com.harel.bench;
+
+import com.harel.driver.CommandCounter;
+import com.harel.driver.DriverFactory;
+import com.harel.utils.AssertUtils;
+import com.harel.utils.Clicks;
+import com.harel.utils.SendKeys;
+import com.harel.utils.Waits;
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and WebDriver-command cost of the interaction primitives, against a local fixture page
+ * in headless Chrome. Each browser benchmark also reports "commands" and "ops" event counters;
+ * commands / ops is the number of driver round trips per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dheadless=true")
+public class InteractionBenchmarks {
+
+    private static final By BUY_BTN = By.xpath("//button[@id='buy']");
+    private static final By NAME_FIELD = By.xpath("//input[@id='name']");
+    private static final By DEPART_FIELD = By.xpath("//input[@id='depart']");
+    private static final By TOTAL_TEXT = By.xpath("//span[@id='total']");
+
+    @State(Scope.Benchmark)
+    public static class Browser {
+        WebDriver driver;
+        CommandCounter counter;
+        Waits waits;
+        Clicks clicks;
+        SendKeys sendKeys;
+
+        @Setup(Level.Trial)
+        public void open() {
+            counter = new CommandCounter();
+            driver = counter.decorate(DriverFactory.createChrome());
+            driver.get(Objects.requireNonNull(
+                    InteractionBenchmarks.class.getResource("/fixtures/interaction.html")).toString());
+            waits = new Waits(driver);
+            clicks = new Clicks(driver, waits, "InteractionFixture");
+            sendKeys = new SendKeys(driver, waits, "InteractionFixture");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            driver.quit();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Commands {
+        public long commands;
+        public long ops;
+        private long before;
+
+        @Setup(Level.Invocation)
+        public void mark(Browser b) {
+            before = b.counter.count();
+        }
+
+        @TearDown(Level.Invocation)
+        public void record(Browser b) {
+            commands += b.counter.count() - before;
+            ops++;
+        }
+    }
+
+    @Benchmark
+    public void click(Browser b, Commands c) {
+        b.clicks.clickUntrusted(BUY_BTN);
+    }
+
+    @Benchmark
+    public void setText(Browser b, Commands c) {
+        b.sendKeys.setText(NAME_FIELD, "ישראל ישראלי");
+    }
+
+    @Benchmark
+    public void setDateAutodetect(Browser b, Commands c) {
+        b.sendKeys.setDateAutodetect(DEPART_FIELD, LocalDate.of(2027, 2, 28));
+    }
+
+    @Benchmark
+    public Object waitVisible(Browser b, Commands c) {
+        b.waits.cache().clear();
+        return b.waits.visible(TOTAL_TEXT);
+    }
+
+    @Benchmark
+    public Object waitVisibleCached(Browser b, Commands c) {
+        return b.waits.onVisible(TOTAL_TEXT, el -> el);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int extractLastInteger() {
+        return AssertUtils.extractLastInteger("סה\"כ: 30 ימים\u200f");
+    }
+}
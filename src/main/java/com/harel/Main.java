@@ -1,17 +1,32 @@
 package com.harel;
 
-//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
-// click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
-public class Main {
-    public static void main(String[] args) {
-        //TIP Press <shortcut actionId="ShowIntentionActions"/> with your caret at the highlighted text
-        // to see how IntelliJ IDEA suggests fixing it.
-        System.out.printf("Hello and welcome!");
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.DriverPool;
+import com.harel.load.LoadGenerator;
+import com.harel.replay.ReplayServer;
+
+import java.nio.file.Path;
 
-        for (int i = 1; i <= 5; i++) {
-            //TIP Press <shortcut actionId="Debug"/> to start debugging your code. We have set one <icon src="AllIcons.Debugger.Db_set_breakpoint"/> breakpoint
-            // for you, but you can always add more by pressing <shortcut actionId="ToggleLineBreakpoint"/>.
-            System.out.println("i = " + i);
+/**
+ * Load-generation entry point: runs concurrent purchase flows against the live site or,
+ * with -Dtarget=replay, against the local ReplayServer, and writes a per-step report.
+ * Sizing: -Dload.flows, -Dload.users, -Dload.rampup.sec, -Dpool.size.
+ */
+public class Main {
+    public static void main(String[] args) throws Exception {
+        ReplayServer replay = null;
+        if ("replay".equalsIgnoreCase(FrameworkConfig.TARGET)) {
+            replay = ReplayServer.fromConfig();
+            replay.start();
+        }
+        try {
+            DriverPool.get().warmUp();
+            LoadGenerator.Report report = LoadGenerator.fromConfig().run();
+            LoadGenerator.write(report, Path.of(FrameworkConfig.LOAD_REPORT));
+            System.out.println("Load report: " + FrameworkConfig.LOAD_REPORT);
+        } finally {
+            DriverPool.get().shutdown();
+            if (replay != null) replay.stop();
         }
     }
-}
\ No newline at end of file
+}
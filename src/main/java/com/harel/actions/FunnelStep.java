@@ -0,0 +1,27 @@
+package com.harel.actions;
+
+/**
+ * Named steps of the travel purchase funnel, in flow order.
+ * Steps that move to another funnel page are expected to change the route.
+ */
+public enum FunnelStep {
+    LANDING(false),
+    FIRST_PURCHASE(false),
+    DESTINATION(false),
+    DATES(true),
+    DATES_FILLED(false),
+    PASSENGERS(true);
+
+    private final boolean navigates;
+
+    FunnelStep(boolean navigates) {
+        this.navigates = navigates;
+    }
+
+    /**
+     * Whether the step ends on a new route, so settling waits for the route change too.
+     */
+    public boolean navigates() {
+        return navigates;
+    }
+}
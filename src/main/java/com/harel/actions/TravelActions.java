@@ -1,101 +1,301 @@
 package com.harel.actions;
 
+import com.harel.checkpoint.CheckpointStore;
+import com.harel.checkpoint.Checkpoints;
+import com.harel.checkpoint.FlowCheckpoint;
 import com.harel.config.FrameworkConfig;
+import com.harel.locators.DomSnapshots;
+import com.harel.matrix.DayCountOracle;
+import com.harel.metrics.FlightRecorder;
+import com.harel.metrics.Metrics;
+import com.harel.metrics.PerfGate;
+import com.harel.metrics.WebPerfCollector;
 import com.harel.pages.BasePage;
+import com.harel.replay.TrafficRecorder;
+import com.harel.report.ResultSink;
 import com.harel.utils.AssertUtils;
+import com.harel.utils.Deadline;
+import com.harel.utils.PageExpectations;
+import com.harel.utils.TransitionTracker;
+import com.harel.visual.VisualCheck;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
 
 import static com.harel.locators.TravelLocators.*;
 
 /**
  * High-level flow actions for the travel insurance purchase process.
- * Logs only key steps and validations.
+ * Steps and validations go to the FlightRecorder; the log only gets them at debug level.
+ * After any step the browser state can be saved as a named checkpoint and restored later,
+ * so a test can start mid-funnel instead of replaying it from the landing page.
+ * All steps share one flow Deadline (FLOW_BUDGET_SEC by default) that caps every wait.
  */
 public class TravelActions extends BasePage {
 
     private static final Logger logger = LogManager.getLogger(TravelActions.class);
 
+    private final CheckpointStore checkpoints;
+    private FunnelStep lastStep;
+
     public TravelActions(WebDriver driver) {
+        this(driver, CheckpointStore.shared());
+    }
+
+    public TravelActions(WebDriver driver, CheckpointStore checkpoints) {
+        this(driver, checkpoints, Deadline.after(Duration.ofSeconds(FrameworkConfig.FLOW_BUDGET_SEC)));
+    }
+
+    /**
+     * Actions whose steps and waits all share the given flow deadline.
+     */
+    public TravelActions(WebDriver driver, CheckpointStore checkpoints, Deadline deadline) {
         super(driver);
+        this.checkpoints = checkpoints;
+        waits.setDeadline(deadline);
+    }
+
+    /**
+     * Start a new flow budget, e.g. when one instance runs many short flows.
+     */
+    public TravelActions budget(Deadline deadline) {
+        waits.setDeadline(deadline);
+        return this;
+    }
+
+    public Deadline deadline() {
+        return waits.deadline();
     }
 
     /**
      * Open a given URL.
      */
     public void openBaseUrl(String url) {
-        logger.info("Opening URL: {}", url);
-        driver.get(url);
+        runStep(FunnelStep.LANDING, () -> {
+            logger.debug("Opening URL: {}", url);
+            driver.get(url);
+        });
     }
 
     /**
      * Click the "first purchase" button.
      */
     public void clickFirstPurchase() {
-        logger.info("Click: first purchase");
-        clicks.click(FIRST_PURCHASE_BTN);
+        runStep(FunnelStep.FIRST_PURCHASE, () -> {
+            logger.debug("Click: first purchase");
+            clicks.click(FIRST_PURCHASE_BTN);
+        });
     }
 
     /**
      * Pick any continent/destination.
      */
     public void pickAnyContinent() {
-        logger.info("Selecting a destination card");
-        clicks.click(ANY_CONTINENT_CARD);
+        runStep(FunnelStep.DESTINATION, () -> {
+            logger.debug("Selecting a destination card");
+            clicks.click(ANY_CONTINENT_CARD);
+        });
     }
 
     /**
      * Proceed to the dates step.
      */
     public void goToDates() {
-        logger.info("Navigating to dates step");
-        clicks.click(TO_DATES_BTN);
+        runStep(FunnelStep.DATES, () -> {
+            logger.debug("Navigating to dates step");
+            clicks.click(TO_DATES_BTN);
+        });
     }
 
     /**
      * Fill departure and return dates using direct inputs.
      */
     public void chooseDates(LocalDate depart, LocalDate ret) {
-        logger.info("Filling dates: depart={}, return={}", depart, ret);
-        sendKeys.setText(departureDateField, depart);
-        sendKeys.setText(returnDateField,    ret);
+        runStep(FunnelStep.DATES_FILLED, () -> {
+            logger.debug("Filling dates: depart={}, return={}", depart, ret);
+            sendKeys.setText(departureDateField, depart);
+            sendKeys.setText(returnDateField,    ret);
+        });
     }
 
     /**
      * Validate total days text with tolerance of 1 day.
      */
     public void verifyTotalDays(LocalDate depart, LocalDate ret) {
-        long between = ChronoUnit.DAYS.between(depart, ret);
-        long expected = FrameworkConfig.COUNT_INCLUSIVE ? between + 1 : between;
+        long expected = DayCountOracle.expectedDays(depart, ret);
+
+        PageExpectations.Report report = expect()
+                .integer(TOTAL_DAYS_TEXT, expected, 1, "Total days number not found or off by more than 1 day")
+                .verify();
+
+        int found = report.integer(0);
+        FlightRecorder.record("verify.totalDays", expected, found);
+        logger.debug("Total days validated. expected≈{}, actual={}", expected, found);
+    }
 
-        String text = waits.visible(TOTAL_DAYS_TEXT).getText();
-        int found = AssertUtils.extractLastInteger(text);
+    /**
+     * Wait until the total days text shows exactly the expected number, then return it; on timeout
+     * returns the last number shown, or -1 if none. Avoids reading the previous value before it re-renders.
+     */
+    public int awaitTotalDays(long expected) {
+        PageExpectations.Report report = expect()
+                .integer(TOTAL_DAYS_TEXT, expected, 0, "Total days did not show " + expected)
+                .check();
+        return report.integer(0);
+    }
 
-        AssertUtils.assertTrue(found > 0, "Total days number not found in text: " + text);
-        AssertUtils.assertEqualsWithTolerance(found, (int) expected, 1);
-        logger.info("Total days validated. expected≈{}, actual={}", expected, found);
+    /**
+     * Read the number shown in the total days text, or -1 if none.
+     */
+    public int readTotalDays() {
+        return waits.onVisible(TOTAL_DAYS_TEXT, el -> AssertUtils.extractLastInteger(el.getText()));
     }
 
     /**
      * Proceed to the passengers step.
      */
     public void goToPassengers() {
-        logger.info("Navigating to passengers step");
-        clicks.click(TO_PASSENGERS_BTN);
+        runStep(FunnelStep.PASSENGERS, () -> {
+            logger.debug("Navigating to passengers step");
+            clicks.click(TO_PASSENGERS_BTN);
+        });
     }
 
     /**
      * Assert passengers page is visible.
      */
     public void assertPassengersPage() {
-        AssertUtils.assertVisible(
-                waits.visible(PASSENGERS_HEADER),
-                "Passengers page not visible"
-        );
-        logger.info("Passengers page is visible");
+        expect().visible(PASSENGERS_HEADER, "Passengers page not visible").verify();
+        FlightRecorder.record("verify.passengersPage", null, true);
+        logger.debug("Passengers page is visible");
+    }
+
+    /**
+     * Compare the current screen with the visual baseline of the last completed step.
+     */
+    public VisualCheck.Result verifyVisual() {
+        if (lastStep == null) throw new IllegalStateException("No funnel step completed yet");
+        return verifyVisual(lastStep.name());
+    }
+
+    /**
+     * Compare the current screen with the visual baseline stored under name; regressions
+     * warn or fail according to VISUAL_GATE.
+     */
+    public VisualCheck.Result verifyVisual(String name) {
+        VisualCheck.Result r = VisualCheck.shared().check(driver, name);
+        FlightRecorder.record("verify.visual", name, r.baselineWritten() ? "baseline"
+                : r.mismatch() != null ? r.mismatch() : r.regressed().size() + "/" + r.tiles() + " tile(s) in " + r.millis() + " ms");
+        if (!r.passed()) {
+            String msg = r.mismatch() != null ? "Visual check of " + name + " not compared: " + r.mismatch()
+                    : "Visual regression on " + name + ": " + r.regressed().size() + " tile(s) changed " + r.regressed();
+            if ("fail".equalsIgnoreCase(FrameworkConfig.VISUAL_GATE)) throw new AssertionError(msg);
+            logger.warn(msg);
+        }
+        return r;
+    }
+
+    /**
+     * Save the current browser state as a checkpoint named after the last completed step.
+     */
+    public FlowCheckpoint saveCheckpoint() {
+        if (lastStep == null) throw new IllegalStateException("No funnel step completed yet");
+        return saveCheckpoint(lastStep.name());
+    }
+
+    /**
+     * Save the current browser state under the given checkpoint name.
+     */
+    public FlowCheckpoint saveCheckpoint(String name) {
+        FlowCheckpoint cp = Checkpoints.capture(driver, name);
+        checkpoints.put(cp);
+        logger.info("Checkpoint '{}' saved at {}", name, cp.url());
+        return cp;
+    }
+
+    /**
+     * Whether a checkpoint with the given name is available.
+     */
+    public boolean hasCheckpoint(String name) {
+        return checkpoints.get(name).isPresent();
+    }
+
+    /**
+     * Restore a checkpoint and continue the flow from there.
+     */
+    public void restoreCheckpoint(String name) {
+        FlowCheckpoint cp = checkpoints.get(name)
+                .orElseThrow(() -> new IllegalStateException("No checkpoint named '" + name + "'"));
+        logger.info("Restoring checkpoint '{}' at {}", name, cp.url());
+        Checkpoints.restore(driver, cp);
+    }
+
+    /**
+     * Restore the checkpoint saved after the given step.
+     */
+    public void restoreCheckpoint(FunnelStep step) {
+        restoreCheckpoint(step.name());
+    }
+
+    /**
+     * Last funnel step completed by this instance, or null.
+     */
+    public FunnelStep lastStep() {
+        return lastStep;
+    }
+
+    @SuppressWarnings("try") // the timer is only closed, never read
+    private void runStep(FunnelStep step, Runnable body) {
+        Deadline deadline = waits.deadline();
+        if (deadline.expired()) {
+            FlightRecorder.record("step", step, "deadline spent");
+            throw new TimeoutException("Flow deadline of " + deadline.budget().toSeconds() + " s spent before step " + step);
+        }
+        waits.cache().clear();
+        // One TravelActions drives the whole funnel; remember strategies per step, not per class.
+        clicks.setPage(step.name());
+        sendKeys.setPage(step.name());
+        TrafficRecorder.of(driver).ifPresent(r -> r.markStep(step.name()));
+        FlightRecorder.record("step", step, deadline.bounded() ? "start, " + deadline : "start");
+        Map<String, Double> perfBefore = FrameworkConfig.PERF_ENABLED ? WebPerfCollector.sample(driver) : null;
+        Optional<TransitionTracker> transitions = TransitionTracker.of(driver);
+        long routeMark = transitions.map(TransitionTracker::mark).orElse(0L);
+        ResultSink results = ResultSink.shared();
+        long startedAt = System.currentTimeMillis();
+        try (Metrics.StepTimer ignored = Metrics.shared().step(step.name())) {
+            body.run();
+            transitions.ifPresent(t -> settle(t, step, routeMark));
+        } catch (RuntimeException e) {
+            FlightRecorder.record("step", step, "failed: " + e);
+            if (results != null) results.step(step.name(), "FAILED", startedAt, System.currentTimeMillis() - startedAt, e.toString());
+            throw e;
+        }
+        if (results != null) results.step(step.name(), "PASSED", startedAt, System.currentTimeMillis() - startedAt, null);
+        if (perfBefore != null) {
+            PerfGate.shared().record(step.name(), WebPerfCollector.stepValues(perfBefore, WebPerfCollector.sample(driver)));
+        }
+        if (FrameworkConfig.DOM_SNAPSHOTS) DomSnapshots.capture(driver, step.name());
+        if (FrameworkConfig.VISUAL_ENABLED) verifyVisual(step.name());
+        FlightRecorder.record("step", step, "done");
+        lastStep = step;
+    }
+
+    /**
+     * Wait until the step's transition has settled (network idle, route committed), within the deadline.
+     */
+    private void settle(TransitionTracker transitions, FunnelStep step, long routeMark) {
+        TransitionTracker.Settled s = transitions.awaitSettled(routeMark, step.navigates(),
+                waits.deadline().cap(Duration.ofMillis(FrameworkConfig.SETTLE_TIMEOUT_MS)));
+        FlightRecorder.record("settle", step, s);
+        if (!s.settled()) {
+            logger.debug("Step {} not settled after {} ms ({} request(s) in flight, route changed: {})",
+                    step, s.millis(), s.pending(), s.routeChanged());
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.harel.checkpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named funnel checkpoints, kept in memory and optionally mirrored as JSON files on disk
+ * so later runs (or other JVMs) can start from them.
+ */
+public final class CheckpointStore {
+
+    private static final Logger logger = LogManager.getLogger(CheckpointStore.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static volatile CheckpointStore shared;
+
+    private final Map<String, FlowCheckpoint> memory = new ConcurrentHashMap<>();
+    private final Path dir;
+
+    /**
+     * Create a store; a null directory keeps checkpoints in memory only.
+     */
+    public CheckpointStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Shared store configured by FrameworkConfig.CHECKPOINT_DIR / CHECKPOINT_PERSIST.
+     */
+    public static CheckpointStore shared() {
+        CheckpointStore s = shared;
+        if (s == null) {
+            synchronized (CheckpointStore.class) {
+                s = shared;
+                if (s == null) {
+                    s = new CheckpointStore(FrameworkConfig.CHECKPOINT_PERSIST
+                            ? Path.of(FrameworkConfig.CHECKPOINT_DIR) : null);
+                    shared = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Store a checkpoint under its name, replacing any previous one.
+     */
+    public void put(FlowCheckpoint cp) {
+        memory.put(cp.name(), cp);
+        if (dir == null) return;
+        try {
+            Files.createDirectories(dir);
+            MAPPER.writeValue(file(cp.name()).toFile(), cp);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint " + cp.name(), e);
+        }
+    }
+
+    /**
+     * Look up a checkpoint in memory, then on disk.
+     */
+    public Optional<FlowCheckpoint> get(String name) {
+        FlowCheckpoint cp = memory.get(name);
+        if (cp != null || dir == null) return Optional.ofNullable(cp);
+        Path f = file(name);
+        if (!Files.isRegularFile(f)) return Optional.empty();
+        try {
+            cp = MAPPER.readValue(f.toFile(), FlowCheckpoint.class);
+            memory.put(name, cp);
+            return Optional.of(cp);
+        } catch (IOException e) {
+            logger.warn("Could not read checkpoint {}: {}", f, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private Path file(String name) {
+        return dir.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+    }
+}
@@ -0,0 +1,115 @@
+package com.harel.checkpoint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.driver.Cdp;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Capture and restore of browser state for funnel checkpoints.
+ */
+public final class Checkpoints {
+
+    private static final Logger logger = LogManager.getLogger(Checkpoints.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String READ_STATE = """
+            const dump = (s) => { const o = {}; for (let i = 0; i < s.length; i++) { const k = s.key(i); o[k] = s.getItem(k); } return o; };
+            return {url: location.href, local: dump(localStorage), session: dump(sessionStorage)};
+            """;
+
+    private Checkpoints() {}
+
+    /**
+     * Snapshot the current URL, cookies, localStorage and sessionStorage.
+     */
+    @SuppressWarnings("unchecked")
+    public static FlowCheckpoint capture(WebDriver driver, String name) {
+        Map<String, Object> state = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(READ_STATE);
+        List<FlowCheckpoint.CookieData> cookies = driver.manage().getCookies().stream()
+                .map(FlowCheckpoint.CookieData::of)
+                .toList();
+        return new FlowCheckpoint(name, (String) state.get("url"), cookies,
+                new HashMap<>((Map<String, String>) state.get("local")),
+                new HashMap<>((Map<String, String>) state.get("session")),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Restore a checkpoint and land on its URL.
+     * With DevTools, cookies and storage are seeded before the first document loads (no extra
+     * navigation); otherwise a same-origin page is opened first to write them through WebDriver.
+     */
+    public static void restore(WebDriver driver, FlowCheckpoint cp) {
+        URI uri = URI.create(cp.url());
+        String origin = uri.getScheme() + "://" + uri.getAuthority();
+        if (Cdp.supported(driver)) {
+            try {
+                restoreViaCdp(driver, cp, origin);
+                return;
+            } catch (WebDriverException e) {
+                logger.debug("CDP restore failed, using WebDriver restore. {}", e.toString());
+            }
+        }
+        driver.get(origin + "/favicon.ico");
+        driver.manage().deleteAllCookies();
+        for (FlowCheckpoint.CookieData c : cp.cookies()) {
+            driver.manage().addCookie(c.toCookie());
+        }
+        ((JavascriptExecutor) driver).executeScript(seedScript(cp, origin));
+        driver.get(cp.url());
+    }
+
+    private static void restoreViaCdp(WebDriver driver, FlowCheckpoint cp, String origin) {
+        List<Map<String, Object>> cookies = cp.cookies().stream().map(c -> {
+            Map<String, Object> m = new HashMap<>();
+            m.put("name", c.name());
+            m.put("value", c.value());
+            m.put("domain", c.domain() != null ? c.domain() : URI.create(origin).getHost());
+            m.put("path", c.path() != null ? c.path() : "/");
+            m.put("secure", c.secure());
+            m.put("httpOnly", c.httpOnly());
+            if (c.expiryMillis() != null) m.put("expires", c.expiryMillis() / 1000.0);
+            if (c.sameSite() != null) m.put("sameSite", c.sameSite());
+            return m;
+        }).toList();
+        Cdp.send(driver, "Network.clearBrowserCookies", Map.of());
+        Cdp.send(driver, "Network.setCookies", Map.of("cookies", cookies));
+
+        Map<String, Object> added = Cdp.send(driver, "Page.addScriptToEvaluateOnNewDocument",
+                Map.of("source", seedScript(cp, origin)));
+        try {
+            driver.get(cp.url());
+        } finally {
+            Cdp.send(driver, "Page.removeScriptToEvaluateOnNewDocument",
+                    Map.of("identifier", added.get("identifier")));
+        }
+    }
+
+    /**
+     * Script writing the checkpoint's storage when run in a top-level document of its origin.
+     */
+    private static String seedScript(FlowCheckpoint cp, String origin) {
+        try {
+            return "(() => {"
+                    + "if (window !== window.top || location.origin !== " + MAPPER.writeValueAsString(origin) + ") return;"
+                    + "const l = " + MAPPER.writeValueAsString(cp.localStorage()) + ";"
+                    + "const s = " + MAPPER.writeValueAsString(cp.sessionStorage()) + ";"
+                    + "localStorage.clear(); sessionStorage.clear();"
+                    + "for (const k in l) localStorage.setItem(k, l[k]);"
+                    + "for (const k in s) sessionStorage.setItem(k, s[k]);"
+                    + "})();";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize checkpoint " + cp.name(), e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.harel.checkpoint;
+
+import org.openqa.selenium.Cookie;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Browser state captured after a funnel step: current URL, cookies and web storage.
+ */
+public record FlowCheckpoint(
+        String name,
+        String url,
+        List<CookieData> cookies,
+        Map<String, String> localStorage,
+        Map<String, String> sessionStorage,
+        long createdAtMillis) {
+
+    /**
+     * Serializable copy of a Selenium cookie.
+     */
+    public record CookieData(String name, String value, String domain, String path,
+                             Long expiryMillis, boolean secure, boolean httpOnly, String sameSite) {
+
+        public static CookieData of(Cookie c) {
+            return new CookieData(c.getName(), c.getValue(), c.getDomain(), c.getPath(),
+                    c.getExpiry() == null ? null : c.getExpiry().getTime(),
+                    c.isSecure(), c.isHttpOnly(), c.getSameSite());
+        }
+
+        public Cookie toCookie() {
+            Cookie.Builder b = new Cookie.Builder(name, value)
+                    .path(path)
+                    .isSecure(secure)
+                    .isHttpOnly(httpOnly);
+            if (domain != null) b.domain(domain);
+            if (expiryMillis != null) b.expiresOn(new Date(expiryMillis));
+            if (sameSite != null) b.sameSite(sameSite);
+            return b.build();
+        }
+    }
+}
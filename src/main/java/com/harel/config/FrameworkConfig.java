@@ -1,16 +1,186 @@
 package com.harel.config;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Global framework configuration.
  */
 public class FrameworkConfig {
-    public static final String BASE_URL = "https://digital.harel-group.co.il/travel-policy";
+    public static final String LIVE_URL = "https://digital.harel-group.co.il/travel-policy";
+
+    /** Target: "live", "record" (live + capture traffic into REPLAY_ARCHIVE) or "replay" (local stand-in). */
+    public static final String TARGET = System.getProperty("target", "live");
+    public static final int REPLAY_PORT = Integer.getInteger("replay.port", 8089);
+    public static final String REPLAY_ARCHIVE = System.getProperty("replay.archive", "replay/travel-policy.json");
+    public static final int REPLAY_LATENCY_MS = Integer.getInteger("replay.latency.ms", 0);
+    public static final int REPLAY_JITTER_MS = Integer.getInteger("replay.jitter.ms", 0);
 
-    public static final boolean HEADLESS = false;
+    public static final String BASE_URL = "replay".equalsIgnoreCase(TARGET)
+            ? "http://localhost:" + REPLAY_PORT + java.net.URI.create(LIVE_URL).getRawPath()
+            : LIVE_URL;
+
+    public static final boolean HEADLESS = Boolean.parseBoolean(
+            System.getProperty("headless", System.getenv().getOrDefault("HEADLESS", "false")));
     public static final String BROWSER_LANG = "he";
 
     public static final int EXPLICIT_TIMEOUT_SEC = 25;
     public static final int SHORT_TIMEOUT_SEC = 5;
 
+    /**
+     * Overall budget per flow in seconds (0 = none); every wait is capped by what is left of it.
+     * With WAIT_LEARNED, a locator's timeout is its recorded p99 × WAIT_HEADROOM + WAIT_FLOOR_MS
+     * (at most EXPLICIT_TIMEOUT_SEC) once it has WAIT_MIN_SAMPLES successful waits in WAIT_HISTORY
+     * for the same target host.
+     */
+    public static final int FLOW_BUDGET_SEC = Integer.getInteger("flow.budget.sec", 180);
+    public static final boolean WAIT_LEARNED = Boolean.parseBoolean(System.getProperty("wait.learned", "true"));
+    public static final double WAIT_HEADROOM = Double.parseDouble(System.getProperty("wait.headroom", "3"));
+    public static final long WAIT_FLOOR_MS = Long.getLong("wait.floor.ms", 2000);
+    public static final int WAIT_MIN_SAMPLES = Integer.getInteger("wait.min.samples", 5);
+    public static final String WAIT_HISTORY = System.getProperty("wait.history", ".cache/wait-latency.properties");
+
+    /** Wait mode: "observer" (in-page MutationObserver) or "polling" (WebDriverWait). */
+    public static final String WAIT_MODE = System.getProperty("wait.mode", "observer");
+
+    /** Click mode for locators opted into Clicks.clickUntrusted: "atomic" (one in-page script) or "native". */
+    public static final String CLICK_MODE = System.getProperty("click.mode", "atomic");
+
+    /** Reuse element handles within a document (per page object) instead of re-resolving locators. */
+    public static final boolean ELEMENT_CACHE = Boolean.parseBoolean(System.getProperty("element.cache", "true"));
+
+    /**
+     * Step boundaries wait until the page settles: no document/XHR/fetch/script request in flight
+     * for SETTLE_QUIET_MS, at most SETTLE_TIMEOUT_MS. Requests older than SETTLE_STUCK_MS are ignored.
+     */
+    public static final boolean SETTLE_ENABLED = Boolean.parseBoolean(System.getProperty("settle.enabled", "true"));
+    public static final long SETTLE_QUIET_MS = Long.getLong("settle.quiet.ms", 150);
+    public static final long SETTLE_TIMEOUT_MS = Long.getLong("settle.timeout.ms", 10_000);
+    public static final long SETTLE_STUCK_MS = Long.getLong("settle.stuck.ms", 5_000);
+
+    /** Input mode: "fast" (native value setter / CDP insertText) or "keys" (sendKeys typing). */
+    public static final String INPUT_MODE = System.getProperty("input.mode", "fast");
+
+    /** File remembering which click/input path worked per page and locator. */
+    public static final String STRATEGY_CACHE_FILE =
+            System.getProperty("strategy.cache", ".cache/interaction-strategies.properties");
+
+    /** Per-step and per-command latency histograms, exported as JSON (and attached to Allure) after the suite. */
+    public static final boolean METRICS_ENABLED = Boolean.parseBoolean(System.getProperty("metrics.enabled", "true"));
+    public static final String METRICS_FILE = System.getProperty("metrics.file", "target/metrics/metrics.json");
+
+    /**
+     * Web performance capture per funnel step (CDP + Performance APIs), compared with a versioned baseline.
+     * PERF_GATE is "warn" or "fail"; only -Dperf.baseline.update=true stores this run as the new baseline,
+     * and a missing baseline is reported through PERF_GATE.
+     * Thresholds are percentages, overridable per metric with -Dperf.threshold.&lt;metric&gt;.
+     */
+    public static final boolean PERF_ENABLED = Boolean.getBoolean("perf.enabled");
+    public static final String PERF_BASELINE = System.getProperty("perf.baseline", "src/test/resources/perf-baseline.json");
+    public static final boolean PERF_BASELINE_UPDATE = Boolean.getBoolean("perf.baseline.update");
+    public static final String PERF_GATE = System.getProperty("perf.gate", "warn");
+    public static final double PERF_THRESHOLD_PCT = Double.parseDouble(System.getProperty("perf.threshold.pct", "25"));
+    public static final double PERF_MIN_DELTA = Double.parseDouble(System.getProperty("perf.min.delta", "1"));
+
+    /**
+     * Tile-hash visual check per funnel step (VisualCheck). With VISUAL_ENABLED every step is checked;
+     * TravelActions.verifyVisual() checks on demand. Tiles whose dHash moved by more than VISUAL_HASH_DISTANCE
+     * bits get a pixel comparison; they regress when more than VISUAL_PIXEL_PCT of their pixels changed.
+     * Baselines are versioned in VISUAL_BASELINE_DIR and (re)written only with VISUAL_BASELINE_UPDATE;
+     * a missing or differently sized baseline is reported like a regression. VISUAL_GATE: "warn" or "fail".
+     */
+    public static final boolean VISUAL_ENABLED = Boolean.getBoolean("visual.enabled");
+    public static final String VISUAL_BASELINE_DIR = System.getProperty("visual.baseline.dir", "src/test/resources/visual");
+    public static final boolean VISUAL_BASELINE_UPDATE = Boolean.getBoolean("visual.baseline.update");
+    public static final String VISUAL_DIFF_DIR = System.getProperty("visual.diff.dir", "target/visual");
+    public static final String VISUAL_GATE = System.getProperty("visual.gate", "warn");
+    public static final int VISUAL_TILE_PX = Integer.getInteger("visual.tile.px", 64);
+    public static final int VISUAL_HASH_DISTANCE = Integer.getInteger("visual.hash.distance", 0);
+    public static final double VISUAL_PIXEL_PCT = Double.parseDouble(System.getProperty("visual.pixel.pct", "1"));
+
+    /** Flight recorder: events kept per thread (0 = off), and when to dump them: "failure", "always" or "never". */
+    public static final int FLIGHT_RECORDER_SIZE = Integer.getInteger("flight.size", 512);
+    public static final String FLIGHT_DUMP = System.getProperty("flight.dump", "failure");
+    public static final String FLIGHT_DIR = System.getProperty("flight.dir", "target/flight");
+
+    /** Failure artifacts (screenshot, DOM, browser log), written in the background; Extent report location. */
+    public static final String ARTIFACT_DIR = System.getProperty("artifact.dir", "target/failures");
+    public static final int ARTIFACT_THREADS = Integer.getInteger("artifact.threads", 2);
+    public static final String EXTENT_REPORT = System.getProperty("extent.report", "target/extent/index.html");
+
+    /**
+     * Test and step outcomes streamed to NDJSON as they happen (one file per shard); ReportMerger turns
+     * the files into the Extent report, and on request into Allure results, in its own JVM after the run.
+     * Enabled by default; -Dresults.enabled=false turns it off. -Dreport.inJvm=true has an unsharded
+     * suite build the Extent report itself when it finishes, at the cost of holding it in the test JVM.
+     */
+    public static final boolean RESULTS_ENABLED = Boolean.parseBoolean(System.getProperty("results.enabled", "true"));
+    public static final String RESULTS_DIR = System.getProperty("results.dir", "target/results");
+    public static final boolean REPORT_IN_JVM = Boolean.getBoolean("report.inJvm");
+
+    /**
+     * Serialized DOM per funnel step for offline locator validation (LocatorValidator).
+     * Captured during a run with -Ddom.snapshots=true; locators slower than LOCATOR_SLOW_MS are reported.
+     */
+    public static final boolean DOM_SNAPSHOTS = Boolean.getBoolean("dom.snapshots");
+    public static final String DOM_SNAPSHOT_DIR = System.getProperty("dom.snapshot.dir", ".cache/dom");
+    public static final long LOCATOR_SLOW_MS = Long.getLong("locator.slow.ms", 20);
+
+    /**
+     * CDP request blocking profile (comma-separated wildcard patterns), opt-in with -Dblock.enabled=true.
+     * Fonts are not blocked by default: they change how the Hebrew text renders and lays out.
+     */
+    public static final boolean BLOCKING_ENABLED = Boolean.getBoolean("block.enabled");
+    public static final List<String> BLOCKED_URL_PATTERNS = patterns("block.deny",
+            "*google-analytics.com*,*googletagmanager.com*,*doubleclick.net*,*facebook.net*,*facebook.com/tr*,"
+                    + "*hotjar.com*,*clarity.ms*,*glassix*,*livechat*,*zopim*,*zendesk*");
+    public static final List<String> ALLOWED_URL_PATTERNS = patterns("block.allow", "");
+    public static final boolean BLOCK_IMAGES = Boolean.getBoolean("block.images");
+
     public static final boolean COUNT_INCLUSIVE = true;
+
+    public static final int POOL_SIZE =
+            Integer.getInteger("pool.size", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    public static final int POOL_ACQUIRE_TIMEOUT_SEC = 120;
+
+    /** Give each test its own browser context (cookie/storage jar) in a pooled Chrome instead of resetting it. */
+    public static final boolean CONTEXT_ISOLATION = Boolean.getBoolean("context.isolation");
+
+    /** Selenium Grid hub (e.g. http://localhost:4444); when unset, browsers are started locally. */
+    public static final String GRID_URL = System.getProperty("grid.url");
+
+    /** Sharding: this JVM runs shard SHARD_INDEX of SHARD_COUNT, planned from SHARD_HISTORY durations. */
+    public static final int SHARD_INDEX = Integer.getInteger("shard.index", 0);
+    public static final int SHARD_COUNT = Integer.getInteger("shard.count", 1);
+    public static final String SHARD_HISTORY = System.getProperty("shard.history", ".cache/test-durations.properties");
+
+    /** Funnel checkpoints: mirrored to disk under CHECKPOINT_DIR when CHECKPOINT_PERSIST is set. */
+    public static final boolean CHECKPOINT_PERSIST = Boolean.getBoolean("checkpoint.persist");
+    public static final String CHECKPOINT_DIR = System.getProperty("checkpoint.dir", "target/checkpoints");
+
+    /** Date-range matrix: departures from today+LEAD over WINDOW days, capped at LIMIT pairs (0 = all). */
+    public static final int MATRIX_LEAD_DAYS = Integer.getInteger("matrix.lead.days", 7);
+    public static final int MATRIX_WINDOW_DAYS = Integer.getInteger("matrix.window.days", 365);
+    public static final int MATRIX_LIMIT = Integer.getInteger("matrix.limit", 0);
+    public static final int MATRIX_TIMEOUT_MIN = Integer.getInteger("matrix.timeout.min", 240);
+    public static final String MATRIX_RESULTS = System.getProperty("matrix.results", "target/matrix/results.ndjson");
+
+    /** Load generator (Main): total flows, concurrent virtual users, linear ramp-up, report file. */
+    public static final int LOAD_FLOWS = Integer.getInteger("load.flows", 20);
+    public static final int LOAD_USERS = Integer.getInteger("load.users", POOL_SIZE);
+    public static final int LOAD_RAMP_UP_SEC = Integer.getInteger("load.rampup.sec", 0);
+    public static final String LOAD_REPORT = System.getProperty("load.report", "target/load/report.json");
+
+    /** Regression threshold for one web performance metric, in percent. */
+    public static double perfThresholdPct(String metric) {
+        String v = System.getProperty("perf.threshold." + metric);
+        return v == null ? PERF_THRESHOLD_PCT : Double.parseDouble(v);
+    }
+
+    private static List<String> patterns(String property, String defaults) {
+        return Arrays.stream(System.getProperty(property, defaults).split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .toList();
+    }
 }
@@ -0,0 +1,127 @@
+package com.harel.driver;
+
+import com.harel.metrics.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Isolated browser contexts (CDP Target.createBrowserContext) inside an already running Chrome.
+ * A context has its own cookies, storage and cache, like an incognito profile, and costs a tab
+ * instead of a process launch. Contexts are created and disposed of on the browser target, since
+ * Chrome refuses them on page sessions. The driver is switched to the context's tab and its
+ * DevTools session follows, so blocking/recording/perf capture apply there too.
+ */
+public final class BrowserContexts {
+
+    private static final Logger logger = LogManager.getLogger(BrowserContexts.class);
+
+    private static final LatencyHistogram startup = new LatencyHistogram();
+    private static final LongAdder heapSamples = new LongAdder();
+    private static final LongAdder heapBytes = new LongAdder();
+    private static final AtomicLong heapMax = new AtomicLong();
+
+    /**
+     * An open context: its id, the tab the driver was switched to, and the tab to return to.
+     */
+    public record Lease(String contextId, String handle, String previousHandle) {}
+
+    private BrowserContexts() {}
+
+    /**
+     * Create a fresh context with one blank tab and switch the driver to it.
+     */
+    public static Lease open(WebDriver driver) {
+        long t0 = System.nanoTime();
+        String previous = driver.getWindowHandle();
+        Set<String> before = driver.getWindowHandles();
+        String contextId = (String) Cdp.sendToBrowser(driver, "Target.createBrowserContext",
+                Map.of("disposeOnDetach", false)).get("browserContextId");
+        try {
+            String targetId = (String) Cdp.sendToBrowser(driver, "Target.createTarget",
+                    Map.of("url", "about:blank", "browserContextId", contextId)).get("targetId");
+            String handle = switchToTarget(driver, targetId, before);
+            Cdp.follow(driver, handle);
+            DriverFactory.attachDevTools(driver);
+            startup.record(System.nanoTime() - t0);
+            return new Lease(contextId, handle, previous);
+        } catch (RuntimeException e) {
+            dispose(driver, contextId);
+            driver.switchTo().window(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Sample the context's JS heap, return to the previous tab and dispose of the context
+     * together with everything it stored.
+     */
+    public static void close(WebDriver driver, Lease lease) {
+        sampleHeap(driver);
+        driver.switchTo().window(lease.previousHandle());
+        Cdp.follow(driver, lease.previousHandle());
+        DriverFactory.attachDevTools(driver);
+        dispose(driver, lease.contextId());
+    }
+
+    /**
+     * Log context startup and heap figures next to the process launch times from DriverFactory.
+     */
+    public static void logSummary() {
+        if (startup.count() == 0) return;
+        LatencyHistogram.Snapshot ctx = startup.snapshot();
+        LatencyHistogram.Snapshot proc = DriverFactory.launchTimes().snapshot();
+        long n = heapSamples.sum();
+        logger.info("Browser contexts: {} opened, startup p50={} ms p95={} ms max={} ms, JS heap avg={} MB max={} MB; "
+                        + "Chrome launches: {}, p50={} ms p95={} ms max={} ms",
+                ctx.count(), ctx.p50Ms(), ctx.p95Ms(), ctx.maxMs(),
+                n == 0 ? 0 : heapBytes.sum() / n / (1024 * 1024), heapMax.get() / (1024 * 1024),
+                proc.count(), proc.p50Ms(), proc.p95Ms(), proc.maxMs());
+    }
+
+    private static String switchToTarget(WebDriver driver, String targetId, Set<String> before) {
+        try {
+            // ChromeDriver uses DevTools target ids as window handles.
+            driver.switchTo().window(targetId);
+            return targetId;
+        } catch (NoSuchWindowException e) {
+            for (String h : driver.getWindowHandles()) {
+                if (!before.contains(h)) {
+                    driver.switchTo().window(h);
+                    return h;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void sampleHeap(WebDriver driver) {
+        try {
+            Object used = ((JavascriptExecutor) driver).executeScript(
+                    "return performance.memory ? performance.memory.usedJSHeapSize : null;");
+            if (used instanceof Number n) {
+                heapSamples.increment();
+                heapBytes.add(n.longValue());
+                heapMax.accumulateAndGet(n.longValue(), Math::max);
+            }
+        } catch (WebDriverException e) {
+            logger.debug("Heap sample failed: {}", e.toString());
+        }
+    }
+
+    private static void dispose(WebDriver driver, String contextId) {
+        try {
+            Cdp.sendToBrowser(driver, "Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+        } catch (WebDriverException e) {
+            logger.warn("Dispose of context {} failed: {}", contextId, e.toString());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.harel.driver;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.Connection;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.DevToolsException;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.SeleniumCdpConnection;
+import org.openqa.selenium.json.Json;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Version-independent Chrome DevTools helpers.
+ * Commands and events are exchanged as plain maps, so no versioned devtools classes are needed.
+ */
+public final class Cdp {
+
+    private static final Duration BROWSER_TIMEOUT = Duration.ofSeconds(10);
+    private static final Map<WebDriver, Connection> browser = new ConcurrentHashMap<>();
+
+    private Cdp() {}
+
+    /**
+     * Whether the driver exposes a DevTools connection.
+     */
+    public static boolean supported(WebDriver driver) {
+        return driver instanceof HasDevTools;
+    }
+
+    /**
+     * The driver's DevTools session, created on first use.
+     */
+    public static DevTools session(WebDriver driver) {
+        DevTools devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        return devTools;
+    }
+
+    /**
+     * Point the driver's DevTools session at the target behind the given window handle.
+     * The previous session is detached first: Selenium dispatches events by method name only, so a
+     * session left attached would keep feeding the listeners. Listeners stay registered; per-target
+     * state (enabled domains, blocked URLs) must be set again.
+     */
+    public static void follow(WebDriver driver, String windowHandle) {
+        DevTools devTools = session(driver);
+        devTools.disconnectSession();
+        devTools.createSession(windowHandle);
+    }
+
+    /**
+     * Send a raw CDP command and return its result.
+     */
+    public static Map<String, Object> send(WebDriver driver, String method, Map<String, Object> params) {
+        return session(driver).send(new Command<Map<String, Object>>(method, params, Json.MAP_TYPE));
+    }
+
+    /**
+     * Send a raw CDP command to the browser target instead of the page. Chrome only accepts some
+     * commands there (Target.createBrowserContext, Target.disposeBrowserContext); they go over a
+     * browser-level connection of their own, opened on first use and closed by detach.
+     */
+    public static Map<String, Object> sendToBrowser(WebDriver driver, String method, Map<String, Object> params) {
+        Connection connection = browser.computeIfAbsent(driver, d -> SeleniumCdpConnection.create(d)
+                .orElseThrow(() -> new DevToolsException("No DevTools endpoint reported for the browser")));
+        return connection.sendAndWait(null, new Command<Map<String, Object>>(method, params, Json.MAP_TYPE),
+                BROWSER_TIMEOUT);
+    }
+
+    /**
+     * Close the browser-level connection of a driver that is being quit.
+     */
+    public static void detach(WebDriver driver) {
+        Connection connection = browser.remove(driver);
+        if (connection != null) connection.close();
+    }
+
+    /**
+     * Subscribe to a raw CDP event. Handlers run on the DevTools connection thread and must be quick.
+     */
+    public static void on(WebDriver driver, String event, Consumer<Map<String, Object>> handler) {
+        session(driver).addListener(new Event<Map<String, Object>>(event, in -> in.read(Json.MAP_TYPE)), handler);
+    }
+}
@@ -0,0 +1,49 @@
+package com.harel.driver;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts WebDriver calls that cost a round trip to the driver.
+ * Accessors that only return local helper objects (manage(), navigate(), switchTo(), ...) are not counted.
+ */
+public class CommandCounter implements WebDriverListener {
+
+    private static final Set<String> LOCAL_METHODS = Set.of(
+            "manage", "navigate", "switchTo", "timeouts", "window", "logs",
+            "getWrappedDriver", "getWrappedElement", "getDevTools", "maybeGetDevTools",
+            "toString", "equals", "hashCode");
+
+    private final LongAdder commands = new LongAdder();
+
+    /**
+     * Wrap a driver so its commands are counted by this listener.
+     */
+    public WebDriver decorate(WebDriver driver) {
+        return new EventFiringDecorator<>(this).decorate(driver);
+    }
+
+    /**
+     * Whether a decorated call goes to the driver rather than returning a local helper.
+     */
+    public static boolean isRoundTrip(Method method) {
+        return !LOCAL_METHODS.contains(method.getName());
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (isRoundTrip(method)) commands.increment();
+    }
+
+    /**
+     * Commands counted so far.
+     */
+    public long count() {
+        return commands.sum();
+    }
+}
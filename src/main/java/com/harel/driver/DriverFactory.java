@@ -1,12 +1,28 @@
 package com.harel.driver;
 
 import com.harel.config.FrameworkConfig;
+import com.harel.metrics.LatencyHistogram;
+import com.harel.metrics.MetricsListener;
+import com.harel.metrics.WebPerfCollector;
+import com.harel.replay.TrafficRecorder;
+import com.harel.utils.ElementCache;
+import com.harel.utils.TransitionTracker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.logging.Level;
 
 /**
  * WebDriver factory.
@@ -15,20 +31,121 @@ public class DriverFactory {
 
     private static final Logger logger = LogManager.getLogger(DriverFactory.class);
 
+    private static volatile boolean driverBinaryResolved;
+    private static final LatencyHistogram launchTimes = new LatencyHistogram();
+
+    /**
+     * Create a Chrome session: on the Selenium Grid when GRID_URL is set, otherwise locally.
+     */
+    public static WebDriver create() {
+        long t0 = System.nanoTime();
+        WebDriver driver = FrameworkConfig.GRID_URL != null ? createRemote() : createChrome();
+        launchTimes.record(System.nanoTime() - t0);
+        return driver;
+    }
+
+    /**
+     * How long each browser launch through create() took, for comparison with BrowserContexts.
+     */
+    public static LatencyHistogram launchTimes() {
+        return launchTimes;
+    }
+
     /**
      * Create a configured Chrome WebDriver instance.
      */
     public static WebDriver createChrome() {
         logger.info("Setting up ChromeDriver (headless={}, lang={})", FrameworkConfig.HEADLESS, FrameworkConfig.BROWSER_LANG);
-        WebDriverManager.chromedriver().setup();
+        resolveDriverBinary();
+        WebDriver driver = configure(new ChromeDriver(chromeOptions()));
+        logger.info("ChromeDriver created");
+        return driver;
+    }
+
+    /**
+     * Create a configured Chrome session on the Selenium Grid at GRID_URL.
+     * The session is augmented so DevTools features keep working through the Grid.
+     */
+    public static WebDriver createRemote() {
+        logger.info("Requesting Chrome session from grid {} (headless={})", FrameworkConfig.GRID_URL, FrameworkConfig.HEADLESS);
+        WebDriver remote;
+        try {
+            remote = RemoteWebDriver.builder()
+                    .oneOf(chromeOptions())
+                    .address(URI.create(FrameworkConfig.GRID_URL).toURL())
+                    .build();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid grid URL: " + FrameworkConfig.GRID_URL, e);
+        }
+        WebDriver driver = configure(new Augmenter().augment(remote));
+        logger.info("Remote Chrome session created");
+        return driver;
+    }
+
+    private static ChromeOptions chromeOptions() {
         ChromeOptions co = new ChromeOptions();
         if (FrameworkConfig.HEADLESS) {
             co.addArguments("--headless=new");
         }
         co.addArguments("--start-maximized");
         co.addArguments("--lang=" + FrameworkConfig.BROWSER_LANG);
-        WebDriver driver = new ChromeDriver(co);
-        logger.info("ChromeDriver created");
+        // Keep console messages so failure artifacts can include the browser log.
+        LoggingPreferences logs = new LoggingPreferences();
+        logs.enable(LogType.BROWSER, Level.ALL);
+        co.setCapability(ChromeOptions.LOGGING_PREFS, logs);
+        if (FrameworkConfig.BLOCKING_ENABLED && FrameworkConfig.BLOCK_IMAGES) {
+            co.setExperimentalOption("prefs", Map.of("profile.managed_default_content_settings.images", 2));
+        }
+        return co;
+    }
+
+    private static WebDriver configure(WebDriver driver) {
+        if (FrameworkConfig.METRICS_ENABLED) {
+            driver = MetricsListener.decorate(driver);
+        }
+        // Async observer waits must be able to outlive the longest explicit wait.
+        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC + 5));
+        attachDevTools(driver);
         return driver;
     }
+
+    /**
+     * Apply the DevTools-based features to the driver's current target; called again whenever
+     * the DevTools session moves to another target.
+     */
+    static void attachDevTools(WebDriver driver) {
+        RequestBlocker.attach(driver);
+        ElementCache.attach(driver);
+        TransitionTracker.attach(driver);
+        if (FrameworkConfig.PERF_ENABLED) {
+            WebPerfCollector.attach(driver);
+        }
+        if ("record".equalsIgnoreCase(FrameworkConfig.TARGET)) {
+            TrafficRecorder.attach(driver);
+        }
+    }
+
+    /**
+     * Drop the per-driver state kept by the DevTools-based features; called before the driver is quit.
+     */
+    static void detachDevTools(WebDriver driver) {
+        RequestBlocker.detach(driver);
+        ElementCache.detach(driver);
+        TransitionTracker.detach(driver);
+        TrafficRecorder.detach(driver);
+        Cdp.detach(driver);
+    }
+
+    /**
+     * Resolve the chromedriver binary once per JVM instead of on every launch.
+     */
+    private static void resolveDriverBinary() {
+        if (driverBinaryResolved) return;
+        synchronized (DriverFactory.class) {
+            if (!driverBinaryResolved) {
+                WebDriverManager.chromedriver().setup();
+                driverBinaryResolved = true;
+            }
+        }
+    }
 }
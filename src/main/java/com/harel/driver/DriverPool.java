@@ -0,0 +1,254 @@
+package com.harel.driver;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size pool of pre-warmed WebDriver instances.
+ * A driver is bound to the acquiring thread until it is released, and is reset
+ * (storage, cookies, extra windows) instead of quit between tests. With CONTEXT_ISOLATION,
+ * each acquire opens a fresh browser context instead and release disposes of it.
+ */
+public final class DriverPool {
+
+    private static final Logger logger = LogManager.getLogger(DriverPool.class);
+
+    private static volatile DriverPool shared;
+
+    private final int size;
+    private final Supplier<WebDriver> factory;
+    private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+    private final List<WebDriver> all = new CopyOnWriteArrayList<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final ThreadLocal<WebDriver> bound = new ThreadLocal<>();
+    private final ThreadLocal<BrowserContexts.Lease> contexts = new ThreadLocal<>();
+    private volatile boolean useContexts;
+
+    /**
+     * Create a pool of the given size using the given driver factory, isolating tests by browser
+     * context when FrameworkConfig.CONTEXT_ISOLATION is set.
+     */
+    public DriverPool(int size, Supplier<WebDriver> factory) {
+        this(size, factory, FrameworkConfig.CONTEXT_ISOLATION);
+    }
+
+    /**
+     * Create a pool of the given size using the given driver factory; with contexts, each acquire
+     * opens a fresh browser context.
+     */
+    public DriverPool(int size, Supplier<WebDriver> factory, boolean contexts) {
+        if (size < 1) throw new IllegalArgumentException("Pool size must be >= 1, was " + size);
+        this.size = size;
+        this.factory = factory;
+        this.useContexts = contexts;
+    }
+
+    /**
+     * Shared pool sized by FrameworkConfig.POOL_SIZE, creating local or Grid Chrome sessions.
+     */
+    public static DriverPool get() {
+        DriverPool p = shared;
+        if (p == null) {
+            synchronized (DriverPool.class) {
+                p = shared;
+                if (p == null) {
+                    p = new DriverPool(FrameworkConfig.POOL_SIZE, DriverFactory::create);
+                    shared = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Launch all browsers up front, in parallel.
+     */
+    public void warmUp() {
+        int missing = size - created.get();
+        if (missing <= 0) return;
+        logger.info("Warming up driver pool: {} browser(s)", missing);
+        ExecutorService ex = Executors.newFixedThreadPool(missing);
+        try {
+            List<Future<WebDriver>> futures = new ArrayList<>();
+            for (int i = 0; i < missing; i++) {
+                futures.add(ex.submit(this::tryCreate));
+            }
+            for (Future<WebDriver> f : futures) {
+                WebDriver d = f.get();
+                if (d != null) idle.offer(d);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up driver pool", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Driver pool warm-up failed", e);
+        } finally {
+            ex.shutdown();
+        }
+    }
+
+    /**
+     * Bind a driver to the current thread, waiting for a free one if needed.
+     * Returns the already bound driver when called twice on the same thread.
+     */
+    public WebDriver acquire() {
+        WebDriver d = bound.get();
+        if (d != null) return d;
+
+        d = idle.poll();
+        if (d == null) d = tryCreate();
+        if (d == null) {
+            try {
+                d = idle.poll(FrameworkConfig.POOL_ACQUIRE_TIMEOUT_SEC, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a driver", e);
+            }
+            if (d == null) {
+                throw new IllegalStateException("No driver available within "
+                        + FrameworkConfig.POOL_ACQUIRE_TIMEOUT_SEC + "s (pool size " + size + ")");
+            }
+        }
+        bound.set(d);
+        if (useContexts) openContext(d);
+        return d;
+    }
+
+    /**
+     * The driver bound to the current thread.
+     */
+    public WebDriver current() {
+        WebDriver d = bound.get();
+        if (d == null) throw new IllegalStateException("No driver bound to thread " + Thread.currentThread().getName());
+        return d;
+    }
+
+    /**
+     * The driver bound to the current thread, if any.
+     */
+    public Optional<WebDriver> currentIfBound() {
+        return Optional.ofNullable(bound.get());
+    }
+
+    /**
+     * Reset the current thread's driver and return it to the pool.
+     * A driver that cannot be reset is quit and replaced lazily.
+     */
+    public void release() {
+        WebDriver d = bound.get();
+        if (d == null) return;
+        bound.remove();
+        BrowserContexts.Lease lease = contexts.get();
+        contexts.remove();
+        try {
+            if (lease != null) BrowserContexts.close(d, lease); else reset(d);
+            idle.offer(d);
+        } catch (Exception e) {
+            logger.warn("Driver reset failed, discarding it: {}", e.toString());
+            discard(d);
+        }
+    }
+
+    /**
+     * Quit every driver owned by the pool.
+     */
+    public void shutdown() {
+        logger.info("Shutting down driver pool ({} browser(s))", all.size());
+        for (WebDriver d : all) {
+            DriverFactory.detachDevTools(d);
+            try {
+                d.quit();
+            } catch (Exception e) {
+                logger.debug("Quit failed: {}", e.toString());
+            }
+        }
+        all.clear();
+        idle.clear();
+        created.set(0);
+    }
+
+    /**
+     * Whether acquire still opens browser contexts; false once the pool fell back to resetting drivers.
+     */
+    public boolean usesContexts() {
+        return useContexts;
+    }
+
+    /**
+     * Configured maximum number of drivers.
+     */
+    public int size() {
+        return size;
+    }
+
+    private WebDriver tryCreate() {
+        if (created.incrementAndGet() > size) {
+            created.decrementAndGet();
+            return null;
+        }
+        try {
+            WebDriver d = factory.get();
+            all.add(d);
+            return d;
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void openContext(WebDriver d) {
+        if (!Cdp.supported(d)) {
+            logger.warn("Browser contexts need DevTools; falling back to resetting drivers");
+            useContexts = false;
+            return;
+        }
+        try {
+            contexts.set(BrowserContexts.open(d));
+        } catch (WebDriverException e) {
+            logger.warn("Could not open a browser context, falling back to resetting drivers: {}", e.toString());
+            useContexts = false;
+        }
+    }
+
+    private void discard(WebDriver d) {
+        all.remove(d);
+        created.decrementAndGet();
+        DriverFactory.detachDevTools(d);
+        try {
+            d.quit();
+        } catch (Exception ignored) {}
+    }
+
+    private void reset(WebDriver d) {
+        String main = d.getWindowHandle();
+        for (String handle : d.getWindowHandles()) {
+            if (!handle.equals(main)) {
+                d.switchTo().window(handle).close();
+            }
+        }
+        d.switchTo().window(main);
+        try {
+            ((JavascriptExecutor) d).executeScript(
+                    "try{localStorage.clear();}catch(e){}try{sessionStorage.clear();}catch(e){}");
+        } catch (Exception ignored) {}
+        d.manage().deleteAllCookies();
+        d.get("about:blank");
+    }
+}
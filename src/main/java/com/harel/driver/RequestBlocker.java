@@ -0,0 +1,159 @@
+package com.harel.driver;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Blocks requests the assertions never need (analytics, tag managers, chat widgets)
+ * through Chrome DevTools, and counts what was avoided across the run.
+ * Deny patterns use CDP wildcard syntax ('*'). With only a deny list the browser filters
+ * in-process via Network.setBlockedURLs; an allow list switches to Fetch interception,
+ * where an allowed URL wins over a denied one.
+ */
+public final class RequestBlocker {
+
+    private static final Logger logger = LogManager.getLogger(RequestBlocker.class);
+
+    private static final Map<String, LongAdder> blockedByType = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> loadedByType = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> loadedBytesByType = new ConcurrentHashMap<>();
+    private static final Set<WebDriver> wired = ConcurrentHashMap.newKeySet();
+
+    private RequestBlocker() {}
+
+    /**
+     * Apply the configured blocking profile to the driver's current DevTools target.
+     * Event listeners are registered once per driver; calling again after the session moved
+     * to another target (e.g. a new browser context) only re-enables blocking there.
+     */
+    public static void attach(WebDriver driver) {
+        if (!FrameworkConfig.BLOCKING_ENABLED) return;
+        if (!Cdp.supported(driver)) {
+            logger.warn("Request blocking skipped: driver has no DevTools connection");
+            return;
+        }
+        List<String> deny = FrameworkConfig.BLOCKED_URL_PATTERNS;
+        List<String> allow = FrameworkConfig.ALLOWED_URL_PATTERNS;
+        if (wired.add(driver)) listen(driver, deny, allow);
+
+        Cdp.send(driver, "Network.enable", Map.of());
+        if (allow.isEmpty()) {
+            Cdp.send(driver, "Network.setBlockedURLs", Map.of("urls", deny));
+        } else {
+            Cdp.send(driver, "Fetch.enable", Map.of("patterns", List.of(Map.of("urlPattern", "*"))));
+        }
+    }
+
+    /**
+     * Forget a driver that is being quit; the run's counters are kept.
+     */
+    public static void detach(WebDriver driver) {
+        wired.remove(driver);
+    }
+
+    private static void listen(WebDriver driver, List<String> deny, List<String> allow) {
+        Map<String, String> typeById = new ConcurrentHashMap<>();
+        Cdp.on(driver, "Network.requestWillBeSent",
+                e -> typeById.put((String) e.get("requestId"), String.valueOf(e.getOrDefault("type", "Other"))));
+        Cdp.on(driver, "Network.loadingFinished", e -> {
+            String type = typeById.remove((String) e.get("requestId"));
+            if (type == null) return;
+            counter(loadedByType, type).increment();
+            counter(loadedBytesByType, type).add(((Number) e.getOrDefault("encodedDataLength", 0)).longValue());
+        });
+        Cdp.on(driver, "Network.loadingFailed", e -> {
+            String type = typeById.remove((String) e.get("requestId"));
+            if (e.get("blockedReason") != null) {
+                counter(blockedByType, type == null ? String.valueOf(e.get("type")) : type).increment();
+            }
+        });
+        if (!allow.isEmpty()) {
+            List<Pattern> denyRx = deny.stream().map(RequestBlocker::glob).toList();
+            List<Pattern> allowRx = allow.stream().map(RequestBlocker::glob).toList();
+            Cdp.on(driver, "Fetch.requestPaused", e -> {
+                String id = (String) e.get("requestId");
+                String url = String.valueOf(((Map<?, ?>) e.get("request")).get("url"));
+                if (matchesAny(denyRx, url) && !matchesAny(allowRx, url)) {
+                    counter(blockedByType, String.valueOf(e.getOrDefault("resourceType", "Other"))).increment();
+                    Cdp.send(driver, "Fetch.failRequest", Map.of("requestId", id, "errorReason", "BlockedByClient"));
+                } else {
+                    Cdp.send(driver, "Fetch.continueRequest", Map.of("requestId", id));
+                }
+            });
+        }
+        logger.info("Request blocking on: {} deny, {} allow pattern(s), images {}",
+                deny.size(), allow.size(), FrameworkConfig.BLOCK_IMAGES ? "off" : "on");
+    }
+
+    /**
+     * Requests blocked so far in this run.
+     */
+    public static long blockedRequests() {
+        return sum(blockedByType);
+    }
+
+    /**
+     * Bytes avoided so far, estimated from the average size of requests of the same
+     * resource type that did load (blocked requests never report a size).
+     */
+    public static long estimatedBytesAvoided() {
+        long total = 0;
+        for (Map.Entry<String, LongAdder> e : blockedByType.entrySet()) {
+            total += e.getValue().sum() * averageSize(e.getKey());
+        }
+        return total;
+    }
+
+    /**
+     * Log per-type counters for the run.
+     */
+    public static void logSummary() {
+        if (blockedByType.isEmpty() && loadedByType.isEmpty()) return;
+        Map<String, Long> blocked = new TreeMap<>();
+        blockedByType.forEach((k, v) -> blocked.put(k, v.sum()));
+        logger.info("Request blocking: {} blocked (~{} KB avoided), {} loaded ({} KB); blocked by type {}",
+                blockedRequests(), estimatedBytesAvoided() / 1024,
+                sum(loadedByType), sum(loadedBytesByType) / 1024, blocked);
+    }
+
+    private static long averageSize(String type) {
+        LongAdder n = loadedByType.get(type);
+        LongAdder bytes = loadedBytesByType.get(type);
+        if (n == null || bytes == null || n.sum() == 0) return 0;
+        return bytes.sum() / n.sum();
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> map, String key) {
+        return map.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static long sum(Map<String, LongAdder> map) {
+        return map.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String url) {
+        for (Pattern p : patterns) {
+            if (p.matcher(url).matches()) return true;
+        }
+        return false;
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder rx = new StringBuilder();
+        for (String part : pattern.split("\\*", -1)) {
+            if (!rx.isEmpty()) rx.append(".*");
+            rx.append(Pattern.quote(part));
+        }
+        return Pattern.compile(rx.toString());
+    }
+}
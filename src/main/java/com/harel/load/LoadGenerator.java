@@ -0,0 +1,166 @@
+package com.harel.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.harel.actions.FunnelStep;
+import com.harel.actions.TravelActions;
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.DriverPool;
+import com.harel.metrics.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives concurrent purchase flows (landing → first purchase → destination → dates → passengers)
+ * to see how the quote funnel's front end behaves under load.
+ * Each virtual user is a virtual thread; browsers come from the bounded DriverPool, so users
+ * beyond the pool size simply wait for a free browser. Users start on a linear ramp-up.
+ */
+public final class LoadGenerator {
+
+    private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final DriverPool pool;
+    private final String baseUrl;
+    private final int flows;
+    private final int users;
+    private final Duration rampUp;
+
+    private final Map<FunnelStep, LatencyHistogram> latency = new EnumMap<>(FunnelStep.class);
+    private final Map<FunnelStep, LongAdder> failures = new EnumMap<>(FunnelStep.class);
+    private final LatencyHistogram flowLatency = new LatencyHistogram();
+    private final LongAdder flowsFailed = new LongAdder();
+
+    /**
+     * Per-step figures: completed and failed executions, completions per second, latency.
+     */
+    public record StepReport(long completed, long failed, double perSecond, LatencyHistogram.Snapshot latency) {}
+
+    /**
+     * Whole-run figures.
+     */
+    public record Report(int users, long flows, long failedFlows, double elapsedSec, double flowsPerMinute,
+                         LatencyHistogram.Snapshot flowLatency, Map<String, StepReport> steps) {}
+
+    public LoadGenerator(DriverPool pool, String baseUrl, int flows, int users, Duration rampUp) {
+        if (flows < 1 || users < 1) throw new IllegalArgumentException("flows and users must be >= 1");
+        this.pool = pool;
+        this.baseUrl = baseUrl;
+        this.flows = flows;
+        this.users = users;
+        this.rampUp = rampUp;
+        for (FunnelStep s : FunnelStep.values()) {
+            latency.put(s, new LatencyHistogram());
+            failures.put(s, new LongAdder());
+        }
+    }
+
+    /**
+     * Generator on the shared pool, configured from FrameworkConfig (LOAD_*, BASE_URL).
+     */
+    public static LoadGenerator fromConfig() {
+        return new LoadGenerator(DriverPool.get(), FrameworkConfig.BASE_URL, FrameworkConfig.LOAD_FLOWS,
+                FrameworkConfig.LOAD_USERS, Duration.ofSeconds(FrameworkConfig.LOAD_RAMP_UP_SEC));
+    }
+
+    /**
+     * Run all flows and return the report.
+     */
+    public Report run() {
+        logger.info("Load: {} flow(s), {} user(s), ramp-up {} s, {} browser(s), target {}",
+                flows, users, rampUp.toSeconds(), pool.size(), baseUrl);
+        AtomicInteger tickets = new AtomicInteger(flows);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                long delayMs = rampUp.toMillis() * i / users;
+                executor.submit(() -> user(delayMs, tickets));
+            }
+        }
+        return report(System.nanoTime() - start);
+    }
+
+    /**
+     * Write the report as JSON.
+     */
+    public static void write(Report report, Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        MAPPER.writeValue(file.toFile(), report);
+    }
+
+    private void user(long delayMs, AtomicInteger tickets) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        while (tickets.getAndDecrement() > 0) {
+            long t0 = System.nanoTime();
+            try {
+                flow(new TravelActions(pool.acquire()));
+                flowLatency.record(System.nanoTime() - t0);
+            } catch (RuntimeException e) {
+                flowsFailed.increment();
+                logger.debug("Flow failed on {}: {}", Thread.currentThread(), e.toString());
+            } finally {
+                pool.release();
+            }
+        }
+    }
+
+    private void flow(TravelActions actions) {
+        LocalDate depart = LocalDate.now().plusDays(7);
+        timed(FunnelStep.LANDING, () -> actions.openBaseUrl(baseUrl));
+        timed(FunnelStep.FIRST_PURCHASE, actions::clickFirstPurchase);
+        timed(FunnelStep.DESTINATION, actions::pickAnyContinent);
+        timed(FunnelStep.DATES, actions::goToDates);
+        timed(FunnelStep.DATES_FILLED, () -> actions.chooseDates(depart, depart.plusDays(6)));
+        timed(FunnelStep.PASSENGERS, () -> {
+            actions.goToPassengers();
+            actions.assertPassengersPage();
+        });
+    }
+
+    private void timed(FunnelStep step, Runnable body) {
+        long t0 = System.nanoTime();
+        try {
+            body.run();
+        } catch (RuntimeException e) {
+            failures.get(step).increment();
+            throw e;
+        }
+        latency.get(step).record(System.nanoTime() - t0);
+    }
+
+    private Report report(long elapsedNanos) {
+        double sec = elapsedNanos / 1e9;
+        Map<String, StepReport> steps = new LinkedHashMap<>();
+        latency.forEach((step, h) -> steps.put(step.name(), new StepReport(h.count(), failures.get(step).sum(),
+                sec == 0 ? 0 : h.count() / sec, h.snapshot())));
+        long done = flowLatency.count() + flowsFailed.sum();
+        Report r = new Report(users, done, flowsFailed.sum(), sec, sec == 0 ? 0 : flowLatency.count() / (sec / 60),
+                flowLatency.snapshot(), steps);
+
+        logger.info("Load: {} flow(s), {} failed in {} s — {} flows/min",
+                r.flows(), r.failedFlows(), String.format("%.1f", sec), String.format("%.1f", r.flowsPerMinute()));
+        steps.forEach((name, s) -> logger.info("  {}: {} ok, {} failed, {}/s, p50={} ms p95={} ms p99={} ms max={} ms",
+                String.format("%-15s", name), s.completed(), s.failed(), String.format("%.2f", s.perSecond()),
+                s.latency().p50Ms(), s.latency().p95Ms(), s.latency().p99Ms(), s.latency().maxMs()));
+        return r;
+    }
+}
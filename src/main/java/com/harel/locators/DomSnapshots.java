@@ -0,0 +1,47 @@
+package com.harel.locators;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serialized DOM snapshots, one well-formed XHTML file per funnel step, for LocatorValidator.
+ * Scripts, styles and inline SVG are dropped: locators never target them and they dominate the size.
+ */
+public final class DomSnapshots {
+
+    private static final Logger logger = LogManager.getLogger(DomSnapshots.class);
+
+    static final String SUFFIX = ".xhtml";
+
+    private static final String SERIALIZE = """
+            const root = document.documentElement.cloneNode(true);
+            root.querySelectorAll('script,style,noscript,svg,template').forEach(n => n.remove());
+            return new XMLSerializer().serializeToString(root);
+            """;
+
+    private DomSnapshots() {}
+
+    /**
+     * Write the current DOM as &lt;dir&gt;/&lt;step&gt;.xhtml. Failures are logged, never thrown.
+     */
+    public static void capture(WebDriver driver, String step) {
+        Path file = Path.of(FrameworkConfig.DOM_SNAPSHOT_DIR, step + SUFFIX);
+        try {
+            String xml = (String) ((JavascriptExecutor) driver).executeScript(SERIALIZE);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, xml, StandardCharsets.UTF_8);
+            logger.debug("DOM snapshot of {} written to {} ({} KB)", step, file, xml.length() / 1024);
+        } catch (WebDriverException | IOException e) {
+            logger.warn("DOM snapshot of {} failed: {}", step, e.toString());
+        }
+    }
+}
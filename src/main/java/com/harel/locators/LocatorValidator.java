@@ -0,0 +1,218 @@
+package com.harel.locators;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates every XPath locator of a locator class against captured DOM snapshots, in-process
+ * and without a browser, and reports locators that are missing, ambiguous or slow before a live
+ * run pays a full explicit timeout for each of them. Only presence is checked, not visibility.
+ * Run with: mvn -q exec:java -Dexec.mainClass=com.harel.locators.LocatorValidator [-Dexec.args=&lt;dir&gt;]
+ */
+public final class LocatorValidator {
+
+    private static final Logger logger = LogManager.getLogger(LocatorValidator.class);
+
+    private static final Pattern GENERATED_CLASS = Pattern.compile("\\bjss\\d+\\b");
+
+    /**
+     * OK: exactly one match in at least one snapshot. MISSING: no match in any snapshot.
+     * AMBIGUOUS: more than one match in some snapshot. SLOW: found, but evaluation is slow.
+     * SKIPPED: not an XPath locator. INVALID: the expression does not compile or evaluate.
+     */
+    public enum Status { OK, MISSING, AMBIGUOUS, SLOW, SKIPPED, INVALID }
+
+    /**
+     * Result for one locator: matches per snapshot, the slowest evaluation and brittleness warnings.
+     */
+    public record Finding(String name, String xpath, Status status, Map<String, Integer> matches,
+                          double worstMillis, List<String> warnings) {}
+
+    private final Map<String, Document> snapshots;
+    private final long slowMillis;
+
+    /**
+     * Validator over the given parsed snapshots, keyed by step name.
+     */
+    public LocatorValidator(Map<String, Document> snapshots, long slowMillis) {
+        this.snapshots = snapshots;
+        this.slowMillis = slowMillis;
+    }
+
+    /**
+     * Validator over every *.xhtml snapshot in the directory.
+     */
+    public static LocatorValidator fromDirectory(Path dir, long slowMillis) throws IOException {
+        Map<String, Document> docs = new LinkedHashMap<>();
+        DocumentBuilder parser = parser();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : files.filter(p -> p.toString().endsWith(DomSnapshots.SUFFIX)).sorted().toList()) {
+                String name = f.getFileName().toString();
+                try {
+                    docs.put(name.substring(0, name.length() - DomSnapshots.SUFFIX.length()), parser.parse(f.toFile()));
+                } catch (SAXException e) {
+                    logger.warn("Skipping unparsable snapshot {}: {}", f, e.getMessage());
+                }
+            }
+        }
+        return new LocatorValidator(docs, slowMillis);
+    }
+
+    /**
+     * Public static By fields of the class, by field name.
+     */
+    public static Map<String, By> locators(Class<?> holder) {
+        Map<String, By> out = new LinkedHashMap<>();
+        for (Field f : holder.getFields()) {
+            if (Modifier.isStatic(f.getModifiers()) && By.class.isAssignableFrom(f.getType())) {
+                try {
+                    out.put(f.getName(), (By) f.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read locator " + f, e);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Validate all locators and return one finding each, in declaration order.
+     */
+    public List<Finding> validate(Map<String, By> locators) {
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        List<Finding> findings = new ArrayList<>(locators.size());
+        for (Map.Entry<String, By> e : locators.entrySet()) {
+            findings.add(validate(xpath, e.getKey(), e.getValue()));
+        }
+        return findings;
+    }
+
+    private Finding validate(XPath xpath, String name, By by) {
+        String expr = xpathOf(by);
+        if (expr == null) return new Finding(name, String.valueOf(by), Status.SKIPPED, Map.of(), 0, List.of());
+        List<String> warnings = warnings(expr);
+
+        XPathExpression compiled;
+        try {
+            compiled = xpath.compile(expr);
+        } catch (XPathExpressionException e) {
+            return new Finding(name, expr, Status.INVALID, Map.of(), 0, List.of(String.valueOf(e.getMessage())));
+        }
+
+        Map<String, Integer> matches = new LinkedHashMap<>();
+        long worst = 0;
+        try {
+            for (Map.Entry<String, Document> s : snapshots.entrySet()) {
+                compiled.evaluate(s.getValue(), XPathConstants.NODESET); // warm-up, not timed
+                long t0 = System.nanoTime();
+                NodeList nodes = (NodeList) compiled.evaluate(s.getValue(), XPathConstants.NODESET);
+                worst = Math.max(worst, System.nanoTime() - t0);
+                matches.put(s.getKey(), nodes.getLength());
+            }
+        } catch (XPathExpressionException e) {
+            return new Finding(name, expr, Status.INVALID, matches, 0, List.of(String.valueOf(e.getMessage())));
+        }
+
+        double worstMs = worst / 1e6;
+        Status status;
+        if (matches.values().stream().allMatch(n -> n == 0)) status = Status.MISSING;
+        else if (matches.values().stream().anyMatch(n -> n > 1)) status = Status.AMBIGUOUS;
+        else if (worstMs > slowMillis) status = Status.SLOW;
+        else status = Status.OK;
+        return new Finding(name, expr, status, matches, worstMs, warnings);
+    }
+
+    /**
+     * Log every finding; returns true when no locator is missing, ambiguous or invalid.
+     */
+    public static boolean report(List<Finding> findings) {
+        boolean ok = true;
+        for (Finding f : findings) {
+            String line = String.format("%-9s %-20s %6.2f ms %s%s", f.status(), f.name(), f.worstMillis(), f.matches(),
+                    f.warnings().isEmpty() ? "" : " " + f.warnings());
+            switch (f.status()) {
+                case MISSING, AMBIGUOUS, INVALID -> {
+                    ok = false;
+                    logger.error(line);
+                }
+                case SLOW -> logger.warn(line);
+                default -> logger.info(line);
+            }
+        }
+        return ok;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : FrameworkConfig.DOM_SNAPSHOT_DIR);
+        if (!Files.isDirectory(dir)) {
+            logger.error("No DOM snapshots in {}; capture them with a run using -Ddom.snapshots=true", dir);
+            System.exit(2);
+        }
+        long t0 = System.nanoTime();
+        LocatorValidator validator = fromDirectory(dir, FrameworkConfig.LOCATOR_SLOW_MS);
+        List<Finding> findings = validator.validate(locators(TravelLocators.class));
+        boolean ok = report(findings);
+        logger.info("Validated {} locator(s) against {} snapshot(s) in {} ms",
+                findings.size(), validator.snapshots.size(), (System.nanoTime() - t0) / 1_000_000);
+        if (!ok) System.exit(1);
+    }
+
+    static String xpathOf(By by) {
+        if (by instanceof By.Remotable r) {
+            By.Remotable.Parameters p = r.getRemoteParameters();
+            if ("xpath".equals(p.using())) return String.valueOf(p.value());
+        }
+        return null;
+    }
+
+    private static List<String> warnings(String expr) {
+        List<String> w = new ArrayList<>();
+        if (GENERATED_CLASS.matcher(expr).find()) w.add("generated jss class name");
+        if (expr.contains("@class=")) w.add("exact class attribute");
+        if (expr.contains("text()=")) w.add("exact text");
+        return w;
+    }
+
+    private static DocumentBuilder parser() {
+        try {
+            DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+            // Namespace-unaware so plain //tag steps match the XHTML elements XMLSerializer emits.
+            f.setNamespaceAware(false);
+            f.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            f.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            f.setExpandEntityReferences(false);
+            DocumentBuilder b = f.newDocumentBuilder();
+            b.setErrorHandler(new DefaultHandler()); // report through SAXException only, not stderr
+            return b;
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
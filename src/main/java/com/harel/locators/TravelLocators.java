@@ -23,7 +23,7 @@ public class TravelLocators {
             By.xpath("(//input[@placeholder='dd/mm/yyyy'])[2]");
 
     public static final By TOTAL_DAYS_TEXT =
-            By.xpath("//span[text()='סה\"כ: 30 ימים']");
+            By.xpath("//span[starts-with(normalize-space(.),'סה\"כ:') and contains(.,'ימים')]");
 
     public static final By TO_PASSENGERS_BTN =
             By.xpath("//button[@class='MuiButtonBase-root MuiButton-root jss208 MuiButton-contained MuiButton-containedPrimary']");
@@ -0,0 +1,19 @@
+package com.harel.matrix;
+
+import java.time.LocalDate;
+
+/**
+ * A (depart, return) pair to fill into the dates step.
+ */
+public record DateRange(LocalDate depart, LocalDate ret) {
+
+    public DateRange {
+        if (ret.isBefore(depart)) {
+            throw new IllegalArgumentException("Return " + ret + " is before departure " + depart);
+        }
+    }
+
+    public long expectedDays() {
+        return DayCountOracle.expectedDays(depart, ret);
+    }
+}
@@ -0,0 +1,72 @@
+package com.harel.matrix;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates (depart, return) pairs covering trip lengths, month and year boundaries and leap days.
+ * Departure anchors are the last two and first two days of every month in the booking window,
+ * plus every Feb 28/29 and Mar 1; each anchor is combined with every trip length.
+ * Pairs are produced lazily, so a matrix of thousands of pairs is never held in memory.
+ */
+public final class DateRangeMatrix {
+
+    /** Trip lengths in UI days: every length up to a month, then longer stays. */
+    public static final List<Integer> DEFAULT_LENGTHS = Stream.concat(
+            IntStream.rangeClosed(1, 31).boxed(),
+            Stream.of(45, 60, 90, 120, 180)).toList();
+
+    private final LocalDate firstDepart;
+    private final LocalDate lastDepart;
+    private final List<Integer> lengths;
+    private final boolean inclusive;
+
+    /**
+     * Matrix with departures in [firstDepart, lastDepart] and the given UI trip lengths.
+     */
+    public DateRangeMatrix(LocalDate firstDepart, LocalDate lastDepart, List<Integer> lengths, boolean inclusive) {
+        this.firstDepart = firstDepart;
+        this.lastDepart = lastDepart;
+        this.lengths = lengths;
+        this.inclusive = inclusive;
+    }
+
+    /**
+     * Departure anchors in the window, in date order.
+     */
+    public List<LocalDate> departures() {
+        TreeSet<LocalDate> anchors = new TreeSet<>();
+        for (LocalDate m = firstDepart.withDayOfMonth(1); !m.isAfter(lastDepart); m = m.plusMonths(1)) {
+            LocalDate end = m.withDayOfMonth(m.lengthOfMonth());
+            anchors.add(m);
+            anchors.add(m.plusDays(1));
+            anchors.add(end.minusDays(1));
+            anchors.add(end);
+            if (m.getMonth() == Month.FEBRUARY) {
+                anchors.add(m.withDayOfMonth(28));
+                anchors.add(m.withDayOfMonth(28).plusDays(1)); // Feb 29 in leap years, else Mar 1
+                anchors.add(m.withMonth(3).withDayOfMonth(1));
+            }
+        }
+        return anchors.subSet(firstDepart, true, lastDepart, true).stream().toList();
+    }
+
+    /**
+     * All pairs, lazily: departures × lengths.
+     */
+    public Stream<DateRange> stream() {
+        return departures().stream()
+                .flatMap(d -> lengths.stream().map(len -> new DateRange(d, d.plusDays(inclusive ? len - 1 : len))));
+    }
+
+    /**
+     * Number of pairs the stream will produce.
+     */
+    public long size() {
+        return (long) departures().size() * lengths.size();
+    }
+}
@@ -0,0 +1,28 @@
+package com.harel.matrix;
+
+import com.harel.config.FrameworkConfig;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Pure-Java source of truth for the trip length the UI should display.
+ */
+public final class DayCountOracle {
+    private DayCountOracle() {}
+
+    /**
+     * Expected "total days" for a trip, honouring FrameworkConfig.COUNT_INCLUSIVE.
+     */
+    public static long expectedDays(LocalDate depart, LocalDate ret) {
+        return expectedDays(depart, ret, FrameworkConfig.COUNT_INCLUSIVE);
+    }
+
+    /**
+     * Expected "total days" for a trip under the given counting rule.
+     */
+    public static long expectedDays(LocalDate depart, LocalDate ret, boolean inclusive) {
+        long between = ChronoUnit.DAYS.between(depart, ret);
+        return inclusive ? between + 1 : between;
+    }
+}
@@ -0,0 +1,186 @@
+package com.harel.matrix;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.actions.FunnelStep;
+import com.harel.actions.TravelActions;
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.DriverPool;
+import com.harel.utils.Deadline;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs a date-range matrix across parallel pooled browsers.
+ * Each worker reaches the dates step once, then fills pair after pair and checks the displayed
+ * total against DayCountOracle. Results are streamed to an NDJSON file as they arrive.
+ */
+public final class MatrixRunner {
+
+    private static final Logger logger = LogManager.getLogger(MatrixRunner.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Outcome of one pair. Dates are ISO strings; actual is -1 when no number was read.
+     */
+    public record Result(String depart, String ret, long expected, int actual,
+                         boolean ok, long millis, String worker, String error) {}
+
+    /**
+     * Totals for a run.
+     */
+    public record Summary(long total, long passed, long failed, Duration elapsed) {
+        public double pairsPerMinute() {
+            double minutes = elapsed.toMillis() / 60000.0;
+            return minutes == 0 ? total : total / minutes;
+        }
+    }
+
+    private final DriverPool pool;
+    private final int workers;
+    private final Path output;
+
+    /**
+     * Runner using the given pool with one worker per browser, writing results to output.
+     */
+    public MatrixRunner(DriverPool pool, int workers, Path output) {
+        this.pool = pool;
+        this.workers = workers;
+        this.output = output;
+    }
+
+    /**
+     * Runner on the shared pool, configured from FrameworkConfig.
+     */
+    public static MatrixRunner fromConfig() {
+        DriverPool pool = DriverPool.get();
+        return new MatrixRunner(pool, pool.size(), Path.of(FrameworkConfig.MATRIX_RESULTS));
+    }
+
+    /**
+     * Run every pair of the stream and return the totals.
+     */
+    public Summary run(Stream<DateRange> pairs) {
+        Iterator<DateRange> source = pairs.iterator();
+        AtomicLong passed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long start = System.nanoTime();
+
+        try {
+            if (output.getParent() != null) Files.createDirectories(output.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                ExecutorService executor = Executors.newFixedThreadPool(workers);
+                for (int i = 0; i < workers; i++) {
+                    executor.submit(() -> {
+                        try {
+                            work(source, out, passed, failed);
+                        } catch (RuntimeException e) {
+                            logger.error("Matrix worker stopped: {}", e.toString());
+                        }
+                    });
+                }
+                executor.shutdown();
+                if (!executor.awaitTermination(FrameworkConfig.MATRIX_TIMEOUT_MIN, TimeUnit.MINUTES)) {
+                    executor.shutdownNow();
+                    logger.warn("Matrix run did not finish within {} min", FrameworkConfig.MATRIX_TIMEOUT_MIN);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write matrix results to " + output, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Matrix run interrupted", e);
+        }
+
+        Summary s = new Summary(passed.get() + failed.get(), passed.get(), failed.get(),
+                Duration.ofNanos(System.nanoTime() - start));
+        logger.info("Matrix: {} pair(s), {} passed, {} failed in {} s — {} pairs/min ({} worker(s)), results in {}",
+                s.total(), s.passed(), s.failed(), s.elapsed().toSeconds(),
+                String.format("%.1f", s.pairsPerMinute()), workers, output);
+        return s;
+    }
+
+    /**
+     * Bring a fresh browser to the dates step, from the DATES checkpoint when one exists.
+     */
+    public static void reachDatesStep(TravelActions actions) {
+        if (actions.hasCheckpoint(FunnelStep.DATES.name())) {
+            actions.restoreCheckpoint(FunnelStep.DATES);
+            return;
+        }
+        actions.openBaseUrl(FrameworkConfig.BASE_URL);
+        actions.clickFirstPurchase();
+        actions.pickAnyContinent();
+        actions.goToDates();
+        actions.saveCheckpoint();
+    }
+
+    private void work(Iterator<DateRange> source, BufferedWriter out, AtomicLong passed, AtomicLong failed) {
+        String worker = Thread.currentThread().getName();
+        TravelActions actions = new TravelActions(pool.acquire());
+        try {
+            boolean onDatesStep = false;
+            DateRange r;
+            while ((r = next(source)) != null) {
+                long t0 = System.nanoTime();
+                long expected = r.expectedDays();
+                actions.budget(Deadline.after(Duration.ofSeconds(FrameworkConfig.FLOW_BUDGET_SEC)));
+                Result result;
+                try {
+                    if (!onDatesStep) {
+                        reachDatesStep(actions);
+                        onDatesStep = true;
+                    }
+                    actions.chooseDates(r.depart(), r.ret());
+                    int actual = actions.awaitTotalDays(expected);
+                    result = new Result(r.depart().toString(), r.ret().toString(), expected, actual,
+                            actual == expected, millisSince(t0), worker, null);
+                } catch (RuntimeException e) {
+                    onDatesStep = false;
+                    result = new Result(r.depart().toString(), r.ret().toString(), expected, -1,
+                            false, millisSince(t0), worker, e.toString());
+                }
+                (result.ok() ? passed : failed).incrementAndGet();
+                write(out, result);
+            }
+        } finally {
+            pool.release();
+        }
+    }
+
+    private static DateRange next(Iterator<DateRange> source) {
+        synchronized (source) {
+            return source.hasNext() ? source.next() : null;
+        }
+    }
+
+    private static void write(BufferedWriter out, Result result) {
+        try {
+            String line = MAPPER.writeValueAsString(result);
+            synchronized (out) {
+                out.write(line);
+                out.newLine();
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long millisSince(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+}
@@ -0,0 +1,131 @@
+package com.harel.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.config.FrameworkConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * In-memory flight recorder for interaction events (steps, clicks, inputs, fallbacks).
+ * Each thread writes into its own fixed-size ring buffer, so recording takes no lock and
+ * does no I/O; old events are overwritten. Buffers are written out as NDJSON only when a
+ * test fails or a dump is requested. FLIGHT_RECORDER_SIZE = 0 turns recording off.
+ */
+public final class FlightRecorder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ThreadLocal<Ring> ring = ThreadLocal.withInitial(FlightRecorder::register);
+    private static final Map<Thread, Ring> rings = new WeakHashMap<>();
+
+    /**
+     * One recorded event. Target and detail are kept as references and only turned into text when dumped.
+     */
+    public record Event(long epochMillis, long nanos, String thread, String kind, Object target, Object detail) {}
+
+    private static final class Ring {
+        final Event[] events = new Event[FrameworkConfig.FLIGHT_RECORDER_SIZE];
+        long next;
+
+        void add(Event e) {
+            events[(int) (next++ % events.length)] = e;
+        }
+
+        List<Event> snapshot() {
+            List<Event> out = new ArrayList<>(events.length);
+            long from = Math.max(0, next - events.length);
+            for (long i = from; i < next; i++) {
+                Event e = events[(int) (i % events.length)];
+                if (e != null) out.add(e);
+            }
+            return out;
+        }
+    }
+
+    private FlightRecorder() {}
+
+    /**
+     * Record an event on the current thread.
+     */
+    public static void record(String kind, Object target, Object detail) {
+        if (FrameworkConfig.FLIGHT_RECORDER_SIZE <= 0) return;
+        ring.get().add(new Event(System.currentTimeMillis(), System.nanoTime(),
+                Thread.currentThread().getName(), kind, target, detail));
+    }
+
+    /**
+     * Forget the current thread's events, e.g. when a new test starts on it.
+     */
+    public static void clear() {
+        if (FrameworkConfig.FLIGHT_RECORDER_SIZE <= 0) return;
+        Ring r = ring.get();
+        Arrays.fill(r.events, null);
+        r.next = 0;
+    }
+
+    /**
+     * Events currently held for this thread, oldest first.
+     */
+    public static List<Event> events() {
+        return FrameworkConfig.FLIGHT_RECORDER_SIZE <= 0 ? List.of() : ring.get().snapshot();
+    }
+
+    /**
+     * Write this thread's events to the given NDJSON file. Returns false when there was nothing to write.
+     */
+    public static boolean dump(Path file) throws IOException {
+        return write(file, events());
+    }
+
+    /**
+     * Write every live thread's events to one NDJSON file, merged in time order.
+     * Buffers are read without stopping their threads, so events still being written may be missed.
+     */
+    public static boolean dumpAll(Path file) throws IOException {
+        List<Event> all = new ArrayList<>();
+        synchronized (rings) {
+            for (Ring r : rings.values()) {
+                all.addAll(r.snapshot());
+            }
+        }
+        all.sort((a, b) -> Long.compare(a.nanos(), b.nanos()));
+        return write(file, all);
+    }
+
+    private static boolean write(Path file, List<Event> events) throws IOException {
+        if (events.isEmpty()) return false;
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Event e : events) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("time", Instant.ofEpochMilli(e.epochMillis()).toString());
+                line.put("thread", e.thread());
+                line.put("kind", e.kind());
+                if (e.target() != null) line.put("target", String.valueOf(e.target()));
+                if (e.detail() != null) line.put("detail", String.valueOf(e.detail()));
+                out.write(MAPPER.writeValueAsString(line));
+                out.newLine();
+            }
+        }
+        return true;
+    }
+
+    private static Ring register() {
+        Ring r = new Ring();
+        synchronized (rings) {
+            rings.put(Thread.currentThread(), r);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,88 @@
+package com.harel.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (8 per power of two, ~9% resolution)
+ * covering 1 µs to about 2 hours. Recording is a few atomic increments, no allocation.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MIN_SHIFT = 10;   // values below 2^10 ns (~1 µs) share the first buckets
+    private static final int OCTAVES = 43 - MIN_SHIFT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(OCTAVES * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Quantiles of a histogram, in milliseconds.
+     */
+    public record Snapshot(long count, double meanMs, double p50Ms, double p95Ms, double p99Ms, double maxMs) {}
+
+    /**
+     * Record one latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(index(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given quantile (0..1), capped at the observed max.
+     */
+    public long quantileNanos(double q) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    public Snapshot snapshot() {
+        long n = count.sum();
+        return new Snapshot(n,
+                n == 0 ? 0 : millis(totalNanos.sum() / n),
+                millis(quantileNanos(0.50)),
+                millis(quantileNanos(0.95)),
+                millis(quantileNanos(0.99)),
+                millis(maxNanos.get()));
+    }
+
+    static int index(long nanos) {
+        long v = Math.max(nanos, 1L << MIN_SHIFT);
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);
+        int octave = Math.min(magnitude - MIN_SHIFT, OCTAVES - 1);
+        int sub = magnitude - MIN_SHIFT >= OCTAVES
+                ? SUB_BUCKETS - 1
+                : (int) (v >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return octave * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        int octave = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        int magnitude = octave + MIN_SHIFT;
+        return (1L << magnitude) + ((long) (sub + 1) << (magnitude - SUB_BITS)) - 1;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
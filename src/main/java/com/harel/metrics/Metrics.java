@@ -0,0 +1,128 @@
+package com.harel.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run-wide latency metrics: one histogram per TravelActions step and one per WebDriver
+ * command type, plus the number of driver round trips spent inside each step.
+ * Steps are tracked per thread, so parallel tests attribute commands to their own step.
+ */
+public final class Metrics {
+
+    private static final Logger logger = LogManager.getLogger(Metrics.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Metrics shared = new Metrics();
+
+    /**
+     * Separate registry, mainly for tests; the framework records into shared().
+     */
+    public Metrics() {}
+
+    private final Map<String, LatencyHistogram> steps = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> roundTrips = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> currentStep = new ThreadLocal<>();
+
+    /**
+     * Step latency and round trips per step execution.
+     */
+    public record StepReport(LatencyHistogram.Snapshot latency, long roundTrips, double roundTripsPerRun) {}
+
+    /**
+     * Everything recorded so far, as exported to JSON.
+     */
+    public record Report(Map<String, StepReport> steps, Map<String, LatencyHistogram.Snapshot> commands) {}
+
+    /**
+     * Timer for one step execution; closing it records the latency.
+     */
+    public final class StepTimer implements AutoCloseable {
+        private final String step;
+        private final String outer;
+        private final long start = System.nanoTime();
+
+        private StepTimer(String step) {
+            this.step = step;
+            this.outer = currentStep.get();
+            currentStep.set(step);
+        }
+
+        @Override
+        public void close() {
+            histogram(steps, step).record(System.nanoTime() - start);
+            if (outer == null) currentStep.remove(); else currentStep.set(outer);
+        }
+    }
+
+    public static Metrics shared() {
+        return shared;
+    }
+
+    /**
+     * Start timing a step on the current thread; commands issued until close() count towards it.
+     */
+    public StepTimer step(String name) {
+        return new StepTimer(name);
+    }
+
+    /**
+     * Record one WebDriver command and charge a round trip to the thread's current step, if any.
+     */
+    public void command(String name, long nanos) {
+        histogram(commands, name).record(nanos);
+        String step = currentStep.get();
+        if (step != null) roundTrips.computeIfAbsent(step, k -> new LongAdder()).increment();
+    }
+
+    public Report report() {
+        Map<String, StepReport> s = new TreeMap<>();
+        steps.forEach((name, h) -> {
+            long trips = roundTrips.getOrDefault(name, new LongAdder()).sum();
+            long runs = h.count();
+            s.put(name, new StepReport(h.snapshot(), trips, runs == 0 ? 0 : (double) trips / runs));
+        });
+        Map<String, LatencyHistogram.Snapshot> c = new TreeMap<>();
+        commands.forEach((name, h) -> c.put(name, h.snapshot()));
+        return new Report(s, c);
+    }
+
+    public String toJson() {
+        try {
+            return MAPPER.writeValueAsString(report());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize metrics", e);
+        }
+    }
+
+    /**
+     * Write the report as JSON and log the step table. Returns false (writing nothing) when nothing was recorded.
+     */
+    public boolean writeJson(Path file) throws IOException {
+        if (steps.isEmpty() && commands.isEmpty()) return false;
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Files.writeString(file, toJson());
+        report().steps().forEach((name, r) -> logger.info(
+                "Step {}: n={} p50={} ms p95={} ms p99={} ms max={} ms, {} round trip(s)/run",
+                name, r.latency().count(), r.latency().p50Ms(), r.latency().p95Ms(), r.latency().p99Ms(),
+                r.latency().maxMs(), String.format("%.1f", r.roundTripsPerRun())));
+        logger.info("Metrics written to {}", file);
+        return true;
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> map, String name) {
+        LatencyHistogram h = map.get(name);
+        return h != null ? h : map.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+}
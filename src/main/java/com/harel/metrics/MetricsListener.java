@@ -0,0 +1,62 @@
+package com.harel.metrics;
+
+import com.harel.driver.CommandCounter;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Times every WebDriver and WebElement call that costs a round trip and feeds Metrics,
+ * keyed by interface and method (e.g. "WebElement.click").
+ */
+public final class MetricsListener implements WebDriverListener {
+
+    private final Metrics metrics;
+    private final ThreadLocal<long[]> starts = ThreadLocal.withInitial(() -> new long[16]);
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public MetricsListener(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Wrap a driver so its commands are recorded into the shared Metrics.
+     */
+    public static WebDriver decorate(WebDriver driver) {
+        return new EventFiringDecorator<>(new MetricsListener(Metrics.shared())).decorate(driver);
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        if (!CommandCounter.isRoundTrip(method)) return;
+        int[] d = depth.get();
+        long[] s = starts.get();
+        if (d[0] < s.length) s[d[0]] = System.nanoTime();
+        d[0]++;
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(method);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(method);
+    }
+
+    private void finish(Method method) {
+        if (!CommandCounter.isRoundTrip(method)) return;
+        int[] d = depth.get();
+        if (d[0] == 0) return;
+        d[0]--;
+        long[] s = starts.get();
+        if (d[0] < s.length) {
+            metrics.command(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                    System.nanoTime() - s[d[0]]);
+        }
+    }
+}
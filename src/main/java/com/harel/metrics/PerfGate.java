@@ -0,0 +1,145 @@
+package com.harel.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects web-performance values per funnel step and compares their medians with a stored baseline.
+ * Every metric is "lower is better"; a metric regresses when it exceeds the baseline by more than
+ * its threshold percentage and by more than PERF_MIN_DELTA in absolute terms.
+ */
+public final class PerfGate {
+
+    private static final Logger logger = LogManager.getLogger(PerfGate.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final PerfGate shared = new PerfGate(Path.of(FrameworkConfig.PERF_BASELINE));
+
+    private final Path baselineFile;
+    private final Map<String, Map<String, Queue<Double>>> samples = new ConcurrentHashMap<>();
+
+    /**
+     * Stored medians per step and metric.
+     */
+    public record Baseline(long savedAt, Map<String, Map<String, Double>> steps) {}
+
+    /**
+     * One metric that got worse than allowed.
+     */
+    public record Regression(String step, String metric, double baseline, double current, double thresholdPct) {
+        @Override
+        public String toString() {
+            return String.format("%s.%s %.2f -> %.2f (+%.0f%%, limit %.0f%%)", step, metric, baseline, current,
+                    baseline == 0 ? 100.0 : (current - baseline) / baseline * 100, thresholdPct);
+        }
+    }
+
+    public PerfGate(Path baselineFile) {
+        this.baselineFile = baselineFile;
+    }
+
+    public static PerfGate shared() {
+        return shared;
+    }
+
+    /**
+     * Add one execution's values for a step.
+     */
+    public void record(String step, Map<String, Double> values) {
+        Map<String, Queue<Double>> byMetric = samples.computeIfAbsent(step, k -> new ConcurrentHashMap<>());
+        values.forEach((k, v) -> byMetric.computeIfAbsent(k, x -> new ConcurrentLinkedQueue<>()).add(v));
+    }
+
+    /**
+     * Median of the recorded values per step and metric.
+     */
+    public Map<String, Map<String, Double>> medians() {
+        Map<String, Map<String, Double>> out = new TreeMap<>();
+        samples.forEach((step, byMetric) -> {
+            Map<String, Double> m = new TreeMap<>();
+            byMetric.forEach((k, q) -> m.put(k, round(median(new ArrayList<>(q)))));
+            out.put(step, m);
+        });
+        return out;
+    }
+
+    /**
+     * Regressions of the current medians against the baseline (empty when there is no baseline).
+     */
+    public List<Regression> compare(Baseline baseline) {
+        List<Regression> out = new ArrayList<>();
+        medians().forEach((step, metrics) -> {
+            Map<String, Double> base = baseline.steps().get(step);
+            if (base == null) return;
+            metrics.forEach((metric, current) -> {
+                Double b = base.get(metric);
+                if (b == null) return;
+                double pct = FrameworkConfig.perfThresholdPct(metric);
+                if (current > b * (1 + pct / 100) && current - b > FrameworkConfig.PERF_MIN_DELTA) {
+                    out.add(new Regression(step, metric, b, current, pct));
+                }
+            });
+        });
+        return out;
+    }
+
+    /**
+     * End of run: store the medians as the new baseline when PERF_BASELINE_UPDATE is set, otherwise
+     * compare and warn, or fail with an AssertionError when PERF_GATE is "fail". A missing baseline
+     * is never seeded from the run; it is reported like a regression.
+     */
+    public void finish() {
+        if (samples.isEmpty()) return;
+        try {
+            if (FrameworkConfig.PERF_BASELINE_UPDATE) {
+                if (baselineFile.getParent() != null) Files.createDirectories(baselineFile.getParent());
+                MAPPER.writeValue(baselineFile.toFile(), new Baseline(System.currentTimeMillis(), medians()));
+                logger.info("Web performance baseline written to {} ({} step(s))", baselineFile, samples.size());
+                return;
+            }
+            if (!Files.exists(baselineFile)) {
+                gate("No web performance baseline at " + baselineFile
+                        + "; store one with -Dperf.baseline.update=true and commit it");
+                return;
+            }
+            List<Regression> regressions = compare(MAPPER.readValue(baselineFile.toFile(), Baseline.class));
+            if (regressions.isEmpty()) {
+                logger.info("Web performance within baseline for {} step(s)", samples.size());
+                return;
+            }
+            regressions.forEach(r -> logger.warn("Web performance regression: {}", r));
+            gate(regressions.size() + " web performance regression(s): " + regressions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not use performance baseline " + baselineFile, e);
+        }
+    }
+
+    private static void gate(String message) {
+        if ("fail".equalsIgnoreCase(FrameworkConfig.PERF_GATE)) throw new AssertionError(message);
+        logger.warn(message);
+    }
+
+    private static double median(List<Double> values) {
+        values.sort(null);
+        int n = values.size();
+        return n % 2 == 1 ? values.get(n / 2) : (values.get(n / 2 - 1) + values.get(n / 2)) / 2;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
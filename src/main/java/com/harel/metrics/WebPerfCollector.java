@@ -0,0 +1,128 @@
+package com.harel.metrics;
+
+import com.harel.driver.Cdp;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Samples the page's own performance through DevTools and the Performance APIs:
+ * CDP Performance.getMetrics (script/layout/style time, JS heap, DOM nodes), navigation and
+ * resource timings, and LCP / long tasks gathered by observers installed before any page script.
+ * Times are in ms, JSHeapUsedSize in MB and resourceKB in KB.
+ */
+public final class WebPerfCollector {
+
+    private static final Logger logger = LogManager.getLogger(WebPerfCollector.class);
+
+    /** CDP metrics kept, all others are dropped. */
+    private static final Set<String> CDP_METRICS = Set.of(
+            "JSHeapUsedSize", "Nodes", "LayoutCount", "RecalcStyleCount",
+            "LayoutDuration", "RecalcStyleDuration", "ScriptDuration", "TaskDuration");
+
+    /** Metrics that only ever grow within a document; steps report their increase. */
+    static final Set<String> CUMULATIVE = Set.of(
+            "LayoutCount", "RecalcStyleCount", "LayoutDuration", "RecalcStyleDuration",
+            "ScriptDuration", "TaskDuration", "resourceCount", "resourceKB", "longTasks", "longTaskMs");
+
+    static final String OBSERVERS = """
+            (() => {
+              if (window.__perf) return;
+              const p = window.__perf = {lcp: 0, longTasks: 0, longTaskMs: 0};
+              try {
+                new PerformanceObserver(l => { for (const e of l.getEntries()) p.lcp = e.renderTime || e.loadTime || e.startTime; })
+                  .observe({type: 'largest-contentful-paint', buffered: true});
+              } catch (e) {}
+              try {
+                new PerformanceObserver(l => { for (const e of l.getEntries()) { p.longTasks++; p.longTaskMs += e.duration; } })
+                  .observe({type: 'longtask', buffered: true});
+              } catch (e) {}
+            })();
+            """;
+
+    static final String READ_TIMINGS = """
+            const n = performance.getEntriesByType('navigation')[0];
+            const r = performance.getEntriesByType('resource');
+            let kb = 0;
+            for (const e of r) kb += (e.transferSize || 0) / 1024;
+            const p = window.__perf || {};
+            return {
+              ttfb: n ? n.responseStart - n.startTime : 0,
+              domContentLoaded: n ? n.domContentLoadedEventEnd - n.startTime : 0,
+              load: n ? n.loadEventEnd - n.startTime : 0,
+              resourceCount: r.length,
+              resourceKB: kb,
+              lcp: p.lcp || 0,
+              longTasks: p.longTasks || 0,
+              longTaskMs: p.longTaskMs || 0
+            };
+            """;
+
+    private WebPerfCollector() {}
+
+    /**
+     * Enable CDP performance metrics and install the LCP / long-task observers on every new document.
+     */
+    public static void attach(WebDriver driver) {
+        if (!Cdp.supported(driver)) {
+            logger.warn("Web performance capture skipped: driver has no DevTools connection");
+            return;
+        }
+        Cdp.send(driver, "Performance.enable", Map.of("timeDomain", "timeTicks"));
+        Cdp.send(driver, "Page.addScriptToEvaluateOnNewDocument", Map.of("source", OBSERVERS));
+    }
+
+    /**
+     * Current values of all metrics; whatever cannot be read is left out.
+     */
+    public static Map<String, Double> sample(WebDriver driver) {
+        Map<String, Double> out = new TreeMap<>();
+        try {
+            Map<String, Object> res = Cdp.send(driver, "Performance.getMetrics", Map.of());
+            for (Object o : (List<?>) res.get("metrics")) {
+                Map<?, ?> m = (Map<?, ?>) o;
+                String name = String.valueOf(m.get("name"));
+                if (CDP_METRICS.contains(name)) out.put(name, ((Number) m.get("value")).doubleValue());
+            }
+            // Durations come in seconds, heap in bytes.
+            out.replaceAll((k, v) -> k.endsWith("Duration") ? v * 1000 : k.equals("JSHeapUsedSize") ? v / 1024 / 1024 : v);
+        } catch (WebDriverException | ClassCastException e) {
+            logger.debug("Performance.getMetrics unavailable: {}", e.toString());
+        }
+        try {
+            Object res = ((JavascriptExecutor) driver).executeScript(READ_TIMINGS);
+            if (res instanceof Map<?, ?> m) {
+                m.forEach((k, v) -> {
+                    if (v instanceof Number n) out.put(String.valueOf(k), n.doubleValue());
+                });
+            }
+        } catch (WebDriverException e) {
+            logger.debug("Timing read failed: {}", e.toString());
+        }
+        return out;
+    }
+
+    /**
+     * Metrics for a step: increase of cumulative counters between the samples, end value of the rest.
+     * Counters that went down (new document) are reported from zero.
+     */
+    public static Map<String, Double> stepValues(Map<String, Double> before, Map<String, Double> after) {
+        Map<String, Double> out = new TreeMap<>();
+        after.forEach((k, v) -> {
+            if (!CUMULATIVE.contains(k)) {
+                out.put(k, v);
+                return;
+            }
+            double b = before.getOrDefault(k, 0.0);
+            out.put(k, v >= b ? v - b : v);
+        });
+        return out;
+    }
+}
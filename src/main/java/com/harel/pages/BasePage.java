@@ -1,11 +1,15 @@
 package com.harel.pages;
 
+import com.harel.config.FrameworkConfig;
 import com.harel.utils.Clicks;
+import com.harel.utils.PageExpectations;
 import com.harel.utils.SendKeys;
 import com.harel.utils.Waits;
 import com.harel.utils.Js;
 import org.openqa.selenium.WebDriver;
 
+import java.time.Duration;
+
 /**
  * Base page wiring common utilities.
  */
@@ -22,8 +26,15 @@ public abstract class BasePage {
     protected BasePage(WebDriver driver) {
         this.driver = driver;
         this.waits = new Waits(driver);
-        this.clicks = new Clicks(driver, waits);
+        this.clicks = new Clicks(driver, waits, getClass().getSimpleName());
         this.js = new Js(driver);
-        this.sendKeys = new SendKeys(driver, waits);
+        this.sendKeys = new SendKeys(driver, waits, getClass().getSimpleName());
+    }
+
+    /**
+     * Start a batch of expectations on the current page, evaluated in one round trip.
+     */
+    protected PageExpectations expect() {
+        return new PageExpectations(driver, waits.deadline().cap(Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC)));
     }
 }
@@ -0,0 +1,212 @@
+package com.harel.replay;
+
+import com.harel.config.FrameworkConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the travel-policy site that serves a recorded TrafficArchive from memory.
+ * The recorded base host is served at the server root; any other recorded host is served under
+ * /__host/&lt;host&gt;/, and absolute URLs in text bodies are rewritten to match.
+ * Requests are matched on method + host + path + query, then without the query, then on
+ * host + path alone; repeated matches cycle through the recorded responses in order.
+ */
+public final class ReplayServer {
+
+    private static final Logger logger = LogManager.getLogger(ReplayServer.class);
+
+    private static final String HOST_PREFIX = "/__host/";
+    private static final Set<String> DROPPED_HEADERS = Set.of(
+            "content-length", "content-encoding", "transfer-encoding", "connection",
+            "content-security-policy", "strict-transport-security", "alt-svc");
+
+    private final TrafficArchive archive;
+    private final int port;
+    private final int latencyMs;
+    private final int jitterMs;
+    private final String baseHost;
+    private final Map<String, List<Response>> byKey = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private record Response(int status, Map<String, List<String>> headers, byte[] body) {}
+
+    /**
+     * Create a server for the archive on the given port, adding latency ± jitter to each response.
+     */
+    public ReplayServer(TrafficArchive archive, int port, int latencyMs, int jitterMs) {
+        this.archive = archive;
+        this.port = port;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.baseHost = URI.create(archive.baseUrl()).getHost();
+        index();
+    }
+
+    /**
+     * Server for the archive and settings in FrameworkConfig (REPLAY_ARCHIVE, REPLAY_PORT, REPLAY_LATENCY_MS).
+     */
+    public static ReplayServer fromConfig() throws IOException {
+        TrafficArchive archive = TrafficArchive.load(Path.of(FrameworkConfig.REPLAY_ARCHIVE));
+        return new ReplayServer(archive, FrameworkConfig.REPLAY_PORT,
+                FrameworkConfig.REPLAY_LATENCY_MS, FrameworkConfig.REPLAY_JITTER_MS);
+    }
+
+    /**
+     * Start serving on a background executor.
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Replay server on {} serving {} exchange(s) (latency {}±{} ms)",
+                origin(), archive.entries().size(), latencyMs, jitterMs);
+    }
+
+    /**
+     * Stop the server and log hit/miss counters.
+     */
+    public void stop() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        logger.info("Replay server stopped: {} hit(s), {} miss(es)", hits.sum(), misses.sum());
+    }
+
+    /**
+     * Local URL that stands in for the given recorded URL; query and fragment are kept.
+     */
+    public String localUrl(String recordedUrl) {
+        URI u = URI.create(recordedUrl);
+        String pathAndQuery = u.getRawPath() + (u.getRawQuery() == null ? "" : "?" + u.getRawQuery())
+                + (u.getRawFragment() == null ? "" : "#" + u.getRawFragment());
+        return baseHost.equals(u.getHost())
+                ? origin() + pathAndQuery
+                : origin() + HOST_PREFIX + u.getHost() + pathAndQuery;
+    }
+
+    public String origin() {
+        return "http://localhost:" + port;
+    }
+
+    private void index() {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (TrafficArchive.Exchange e : archive.entries()) hosts.add(URI.create(e.url()).getHost());
+
+        for (TrafficArchive.Exchange e : archive.entries()) {
+            URI u = URI.create(e.url());
+            byte[] body = e.base64()
+                    ? Base64.getDecoder().decode(e.body())
+                    : rewrite(e.body() == null ? "" : e.body(), hosts).getBytes(StandardCharsets.UTF_8);
+            Map<String, List<String>> headers = new HashMap<>();
+            e.headers().forEach((k, v) -> {
+                if (DROPPED_HEADERS.contains(k.toLowerCase())) return;
+                // DevTools joins repeated headers (Set-Cookie) with newlines; HttpServer rejects those.
+                for (String line : v.split("\n")) {
+                    headers.computeIfAbsent(k, x -> new ArrayList<>())
+                            .add(k.equalsIgnoreCase("location") ? rewrite(line, hosts) : line);
+                }
+            });
+            Response r = new Response(e.status(), headers, body);
+            for (String key : keys(e.method(), u.getHost(), u.getRawPath(), u.getRawQuery())) {
+                byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(r);
+            }
+        }
+    }
+
+    private String rewrite(String text, Set<String> hosts) {
+        for (String host : hosts) {
+            String local = host.equals(baseHost) ? origin() : origin() + HOST_PREFIX + host;
+            text = text.replace("https://" + host, local).replace("http://" + host, local);
+        }
+        return text;
+    }
+
+    private static List<String> keys(String method, String host, String path, String query) {
+        List<String> keys = new ArrayList<>(3);
+        if (query != null) keys.add(method + " " + host + path + "?" + query);
+        keys.add(method + " " + host + path);
+        keys.add("* " + host + path);
+        return keys;
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            URI u = ex.getRequestURI();
+            String host = baseHost;
+            String path = u.getRawPath();
+            if (path.startsWith(HOST_PREFIX)) {
+                int slash = path.indexOf('/', HOST_PREFIX.length());
+                host = path.substring(HOST_PREFIX.length(), slash < 0 ? path.length() : slash);
+                path = slash < 0 ? "/" : path.substring(slash);
+            }
+            ex.getRequestBody().readAllBytes();
+
+            Response r = null;
+            for (String key : keys(ex.getRequestMethod(), host, path, u.getRawQuery())) {
+                List<Response> candidates = byKey.get(key);
+                if (candidates != null) {
+                    int i = cursors.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+                    r = candidates.get(i % candidates.size());
+                    break;
+                }
+            }
+            delay();
+            ex.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+            if (r == null) {
+                misses.increment();
+                logger.debug("Replay miss: {} {}{}", ex.getRequestMethod(), host, u);
+                ex.sendResponseHeaders(404, -1);
+                return;
+            }
+            hits.increment();
+            r.headers().forEach((k, values) -> values.forEach(v -> ex.getResponseHeaders().add(k, v)));
+            boolean noBody = r.body().length == 0 || "HEAD".equals(ex.getRequestMethod())
+                    || r.status() == 204 || r.status() == 304;
+            ex.sendResponseHeaders(r.status(), noBody ? -1 : r.body().length);
+            if (!noBody) {
+                try (OutputStream out = ex.getResponseBody()) {
+                    out.write(r.body());
+                }
+            }
+        }
+    }
+
+    private void delay() {
+        int ms = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextInt(-jitterMs, jitterMs + 1) : 0);
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
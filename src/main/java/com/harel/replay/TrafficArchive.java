@@ -0,0 +1,40 @@
+package com.harel.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HAR-like archive of recorded HTTP exchanges, stored as JSON.
+ */
+public record TrafficArchive(String baseUrl, long recordedAtMillis, List<Exchange> entries) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * One request/response pair. Binary bodies are kept base64-encoded.
+     *
+     * @param step funnel step that was running when the request was sent, or null
+     * @param resourceType CDP resource type (Document, Script, XHR, Fetch, ...)
+     * @param requestHeaders headers the browser sent; null in archives recorded before they were kept
+     * @param headers response headers
+     */
+    public record Exchange(String step, String resourceType,
+                           String method, String url, Map<String, String> requestHeaders, String requestBody,
+                           int status, Map<String, String> headers, String mimeType,
+                           String body, boolean base64) {}
+
+    public static TrafficArchive load(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), TrafficArchive.class);
+    }
+
+    public void save(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+}
@@ -0,0 +1,153 @@
+package com.harel.replay;
+
+import com.harel.driver.Cdp;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Captures every HTTP exchange a browser makes, through DevTools Network events,
+ * so the run can later be served by ReplayServer.
+ */
+public final class TrafficRecorder {
+
+    private static final Logger logger = LogManager.getLogger(TrafficRecorder.class);
+
+    private static final Map<WebDriver, TrafficRecorder> active = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<Recorded> detached = new ConcurrentLinkedQueue<>();
+
+    private final WebDriver driver;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Recorded> recorded = new ConcurrentLinkedQueue<>();
+    private volatile String step;
+
+    private static final class Pending {
+        String step, type, method, url, requestBody, mimeType;
+        int status;
+        Map<String, String> requestHeaders = Map.of();
+        Map<String, String> headers = Map.of();
+        long seq;
+    }
+
+    private record Recorded(long seq, TrafficArchive.Exchange exchange) {}
+
+    private TrafficRecorder(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Start recording the driver's traffic. For a driver that is already recorded, only
+     * re-enables network events on its current DevTools target.
+     */
+    public static TrafficRecorder attach(WebDriver driver) {
+        TrafficRecorder existing = active.get(driver);
+        if (existing != null) {
+            Cdp.send(driver, "Network.enable", Map.of());
+            return existing;
+        }
+        TrafficRecorder r = new TrafficRecorder(driver);
+        r.subscribe();
+        active.put(driver, r);
+        logger.info("Recording traffic");
+        return r;
+    }
+
+    /**
+     * Stop recording a driver that is being quit. What it recorded is kept for saveAll.
+     */
+    public static void detach(WebDriver driver) {
+        TrafficRecorder r = active.remove(driver);
+        if (r != null) detached.addAll(r.recorded);
+    }
+
+    /**
+     * The recorder attached to the driver, if any.
+     */
+    public static Optional<TrafficRecorder> of(WebDriver driver) {
+        return Optional.ofNullable(active.get(driver));
+    }
+
+    /**
+     * Tag requests sent from now on with the given funnel step.
+     */
+    public void markStep(String step) {
+        this.step = step;
+    }
+
+    /**
+     * Write everything recorded in this run, by attached and detached recorders, into one archive, in send order.
+     */
+    public static void saveAll(String baseUrl, Path file) throws IOException {
+        List<Recorded> all = new ArrayList<>(detached);
+        active.values().forEach(r -> all.addAll(r.recorded));
+        all.sort(Comparator.comparingLong(Recorded::seq));
+        List<TrafficArchive.Exchange> entries = all.stream().map(Recorded::exchange).toList();
+        new TrafficArchive(baseUrl, System.currentTimeMillis(), entries).save(file);
+        logger.info("Saved {} recorded exchange(s) to {}", entries.size(), file);
+    }
+
+    private void subscribe() {
+        Cdp.on(driver, "Network.requestWillBeSent", e -> {
+            Map<?, ?> req = (Map<?, ?>) e.get("request");
+            Pending hop = pending.get((String) e.get("requestId"));
+            if (hop != null && e.get("redirectResponse") instanceof Map<?, ?> redirect) {
+                // Same request id continues after a redirect; keep the hop so replay can redirect too.
+                recorded.add(new Recorded(hop.seq, new TrafficArchive.Exchange(hop.step, hop.type, hop.method, hop.url,
+                        hop.requestHeaders, hop.requestBody, ((Number) redirect.get("status")).intValue(),
+                        headers((Map<?, ?>) redirect.get("headers")), null, "", false)));
+            }
+            Pending p = new Pending();
+            p.step = step;
+            p.type = String.valueOf(e.getOrDefault("type", "Other"));
+            p.method = String.valueOf(req.get("method"));
+            p.url = String.valueOf(req.get("url"));
+            p.requestBody = (String) req.get("postData");
+            p.requestHeaders = headers((Map<?, ?>) req.get("headers"));
+            p.seq = System.nanoTime();
+            pending.put((String) e.get("requestId"), p);
+        });
+        Cdp.on(driver, "Network.responseReceived", e -> {
+            Pending p = pending.get((String) e.get("requestId"));
+            if (p == null) return;
+            Map<?, ?> resp = (Map<?, ?>) e.get("response");
+            p.status = ((Number) resp.get("status")).intValue();
+            p.mimeType = (String) resp.get("mimeType");
+            p.headers = headers((Map<?, ?>) resp.get("headers"));
+        });
+        Cdp.on(driver, "Network.loadingFinished", e -> {
+            String id = (String) e.get("requestId");
+            Pending p = pending.remove(id);
+            if (p == null || p.status == 0) return;
+            String body = "";
+            boolean base64 = false;
+            try {
+                Map<String, Object> res = Cdp.send(driver, "Network.getResponseBody", Map.of("requestId", id));
+                body = String.valueOf(res.get("body"));
+                base64 = Boolean.TRUE.equals(res.get("base64Encoded"));
+            } catch (RuntimeException ex) {
+                logger.debug("No body for {} {}: {}", p.method, p.url, ex.toString());
+            }
+            recorded.add(new Recorded(p.seq, new TrafficArchive.Exchange(p.step, p.type, p.method, p.url,
+                    p.requestHeaders, p.requestBody, p.status, p.headers, p.mimeType, body, base64)));
+        });
+        Cdp.on(driver, "Network.loadingFailed", e -> pending.remove((String) e.get("requestId")));
+        Cdp.send(driver, "Network.enable", Map.of());
+    }
+
+    private static Map<String, String> headers(Map<?, ?> raw) {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (raw != null) raw.forEach((k, v) -> headers.put(String.valueOf(k), String.valueOf(v)));
+        return headers;
+    }
+}
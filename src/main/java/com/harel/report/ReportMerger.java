@@ -0,0 +1,265 @@
+package com.harel.report;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.config.FrameworkConfig;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.StatusDetails;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Builds the Extent report, and on request Allure results, from the NDJSON files ResultSink wrote,
+ * including every shard's file, after the run. Files are read line by line; only the steps of tests
+ * that have not finished yet are held in memory. Steps of a test whose result never arrived
+ * (the JVM died) are reported as an interrupted test. Run it after the tests, once every shard is
+ * done; with -Dreport.inJvm=true an unsharded TestNG run builds the report itself instead.
+ * Run with: mvn -q exec:java -Dexec.mainClass=com.harel.report.ReportMerger
+ * [-Dexec.args="&lt;resultsDir&gt; --extent &lt;file&gt; --allure &lt;dir&gt;"]
+ */
+public final class ReportMerger {
+
+    private static final Logger logger = LogManager.getLogger(ReportMerger.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final String UNATTRIBUTED = "Unattributed steps";
+    static final String INTERRUPTED = "INTERRUPTED";
+
+    private final ExtentReports extent;
+    private final Path extentDir;
+    private final FileSystemResultsWriter allure;
+    private final Map<String, List<ResultSink.Event>> running = new HashMap<>();
+    private final Map<String, Map<String, long[]>> orphans = new TreeMap<>();
+    private boolean sharded;
+    private int tests;
+    private int steps;
+
+    /**
+     * Merger writing the Extent report to extentFile and, when allureDir is not null, Allure results there.
+     */
+    public ReportMerger(Path extentFile, Path allureDir) {
+        this.extentDir = extentFile.toAbsolutePath().getParent();
+        this.extent = new ExtentReports();
+        extent.attachReporter(new ExtentSparkReporter(extentFile.toString()));
+        this.allure = allureDir == null ? null : new FileSystemResultsWriter(allureDir);
+    }
+
+    /**
+     * Merge every *.ndjson file in the directory, in name order.
+     */
+    public void mergeDirectory(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> results = files.filter(p -> p.toString().endsWith(ResultSink.SUFFIX)).sorted().toList();
+            sharded = results.size() > 1;
+            for (Path f : results) merge(f);
+        }
+    }
+
+    /**
+     * Merge one results file.
+     */
+    public void merge(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int n = 0;
+            while ((line = in.readLine()) != null) {
+                n++;
+                if (line.isBlank()) continue;
+                try {
+                    accept(MAPPER.readValue(line, ResultSink.Event.class));
+                } catch (JsonProcessingException e) {
+                    // The last line of a file from a JVM that was killed mid-write.
+                    logger.warn("Skipping malformed line {} of {}", n, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Report what is still pending and write the Extent report.
+     */
+    public void finish() {
+        running.forEach((key, buffered) -> {
+            ResultSink.Event first = buffered.get(0);
+            ResultSink.Event last = buffered.get(buffered.size() - 1);
+            render(new ResultSink.Event("test", first.parent(), null, INTERRUPTED, first.start(),
+                    last.start() + last.durationMs() - first.start(), first.shard(), first.thread(),
+                    "No result recorded; the run stopped during this test", Map.of()), buffered);
+        });
+        running.clear();
+        if (!orphans.isEmpty()) renderOrphans();
+        extent.flush();
+        logger.info("Merged {} test(s) and {} step(s) into {}", tests, steps, extentDir);
+    }
+
+    /**
+     * Merge every results file in dir into an Extent report at extentFile, plus Allure results
+     * in allureDir when it is not null.
+     */
+    public static void build(Path dir, Path extentFile, Path allureDir) throws IOException {
+        long t0 = System.nanoTime();
+        ReportMerger merger = new ReportMerger(extentFile, allureDir);
+        merger.mergeDirectory(dir);
+        merger.finish();
+        logger.info("Report built in {} ms", (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    private void accept(ResultSink.Event e) {
+        if ("step".equals(e.type())) {
+            steps++;
+            if (e.parent() == null) {
+                orphans.computeIfAbsent(e.name(), k -> new TreeMap<>())
+                        .computeIfAbsent(e.status(), k -> new long[2]);
+                long[] c = orphans.get(e.name()).get(e.status());
+                c[0]++;
+                c[1] += e.durationMs();
+            } else {
+                running.computeIfAbsent(key(e.shard(), e.thread(), e.parent()), k -> new ArrayList<>()).add(e);
+            }
+        } else {
+            render(e, running.remove(key(e.shard(), e.thread(), e.name())));
+        }
+    }
+
+    private void render(ResultSink.Event test, List<ResultSink.Event> testSteps) {
+        tests++;
+        if (testSteps == null) testSteps = List.of();
+        renderExtent(test, testSteps);
+        if (allure != null) renderAllure(test, testSteps);
+    }
+
+    private void renderExtent(ResultSink.Event test, List<ResultSink.Event> testSteps) {
+        ExtentTest t = extent.createTest(test.name());
+        t.getModel().setStartTime(new Date(test.start()));
+        t.getModel().setEndTime(new Date(test.start() + test.durationMs()));
+        if (sharded) t.assignCategory("shard-" + test.shard());
+        for (ResultSink.Event s : testSteps) {
+            ExtentTest node = t.createNode(s.name());
+            node.getModel().setStartTime(new Date(s.start()));
+            node.getModel().setEndTime(new Date(s.start() + s.durationMs()));
+            node.log(extentStatus(s.status()), s.error() == null ? s.durationMs() + " ms" : s.error());
+        }
+        String detail = test.error() != null ? "<pre>" + escape(test.error()) + "</pre>" : test.status();
+        t.log(extentStatus(test.status()), detail);
+        if (test.attachments() == null) return;
+        test.attachments().forEach((name, file) -> {
+            String link = extentDir.relativize(Path.of(file).toAbsolutePath()).toString().replace('\\', '/');
+            if ("screenshot".equals(name)) {
+                t.fail("Screenshot", MediaEntityBuilder.createScreenCaptureFromPath(link).build());
+            } else {
+                t.info("<a href='" + link + "'>" + name + "</a>");
+            }
+        });
+    }
+
+    private void renderOrphans() {
+        ExtentTest t = extent.createTest(UNATTRIBUTED, "Steps run outside a test method, e.g. by load or matrix runs");
+        orphans.forEach((name, byStatus) -> byStatus.forEach((status, c) ->
+                t.createNode(name).log(extentStatus(status), c[0] + " run(s), mean " + c[1] / c[0] + " ms")));
+    }
+
+    private void renderAllure(ResultSink.Event test, List<ResultSink.Event> testSteps) {
+        String uuid = UUID.randomUUID().toString();
+        List<StepResult> allureSteps = new ArrayList<>(testSteps.size());
+        for (ResultSink.Event s : testSteps) {
+            allureSteps.add(new StepResult().setName(s.name()).setStatus(allureStatus(s.status()))
+                    .setStart(s.start()).setStop(s.start() + s.durationMs()).setStage(Stage.FINISHED)
+                    .setStatusDetails(details(s.error())));
+        }
+        List<Attachment> attachments = new ArrayList<>();
+        if (test.attachments() != null) {
+            test.attachments().forEach((name, file) -> {
+                Path source = Path.of(file);
+                if (!Files.isRegularFile(source)) return;
+                String target = uuid + "-" + source.getFileName();
+                try (InputStream in = Files.newInputStream(source)) {
+                    allure.write(target, in);
+                    attachments.add(new Attachment().setName(name).setSource(target));
+                } catch (IOException e) {
+                    logger.warn("Attachment {} of {} not copied: {}", name, test.name(), e.toString());
+                }
+            });
+        }
+        allure.write(new TestResult().setUuid(uuid).setName(test.name()).setFullName(test.name())
+                .setHistoryId(test.name()).setStatus(allureStatus(test.status())).setStage(Stage.FINISHED)
+                .setStart(test.start()).setStop(test.start() + test.durationMs())
+                .setStatusDetails(details(test.error())).setSteps(allureSteps).setAttachments(attachments)
+                .setLabels(List.of(new Label().setName("thread").setValue(test.thread()),
+                        new Label().setName("host").setValue("shard-" + test.shard()))));
+    }
+
+    private static String key(int shard, String thread, String test) {
+        return shard + "|" + thread + "|" + test;
+    }
+
+    private static Status extentStatus(String status) {
+        return switch (status) {
+            case "PASSED" -> Status.PASS;
+            case "SKIPPED" -> Status.SKIP;
+            case INTERRUPTED -> Status.WARNING;
+            default -> Status.FAIL;
+        };
+    }
+
+    private static io.qameta.allure.model.Status allureStatus(String status) {
+        return switch (status) {
+            case "PASSED" -> io.qameta.allure.model.Status.PASSED;
+            case "SKIPPED" -> io.qameta.allure.model.Status.SKIPPED;
+            case INTERRUPTED -> io.qameta.allure.model.Status.BROKEN;
+            default -> io.qameta.allure.model.Status.FAILED;
+        };
+    }
+
+    private static StatusDetails details(String error) {
+        if (error == null) return null;
+        int nl = error.indexOf('\n');
+        return new StatusDetails().setMessage(nl < 0 ? error : error.substring(0, nl)).setTrace(error);
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(FrameworkConfig.RESULTS_DIR);
+        Path extentFile = Path.of(FrameworkConfig.EXTENT_REPORT);
+        Path allureDir = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--extent" -> extentFile = Path.of(args[++i]);
+                case "--allure" -> allureDir = Path.of(args[++i]);
+                default -> dir = Path.of(args[i]);
+            }
+        }
+        if (!Files.isDirectory(dir)) {
+            logger.error("No results in {}; run the tests with -Dresults.enabled=true", dir);
+            System.exit(2);
+        }
+        build(dir, extentFile, allureDir);
+    }
+}
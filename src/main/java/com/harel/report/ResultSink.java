@@ -0,0 +1,188 @@
+package com.harel.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Appends test and step outcomes to an NDJSON file while the run is going.
+ * Producers only add to a lock-free queue; one writer thread drains it and flushes after each batch,
+ * so memory stays flat however long the run is, and a JVM that dies loses at most the last batch.
+ * Sharded runs write one file per shard; ReportMerger combines them. Files of earlier runs with
+ * another shard layout are deleted when the sink starts, so a merge only sees the current run.
+ */
+public final class ResultSink {
+
+    private static final Logger logger = LogManager.getLogger(ResultSink.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final String SUFFIX = ".ndjson";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static volatile ResultSink shared;
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+
+    /**
+     * One outcome. type is "test" or "step"; parent is the test a step ran in (null outside tests);
+     * status is PASSED, FAILED or SKIPPED; attachments map a name to a file path.
+     */
+    public record Event(String type, String name, String parent, String status, long start, long durationMs,
+                       int shard, String thread, String error, Map<String, String> attachments) {}
+
+    private final Path file;
+    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Start a sink writing to the given file (truncated).
+     */
+    public ResultSink(Path file) {
+        this.file = file;
+        this.writer = Thread.ofPlatform().name("result-sink").daemon().unstarted(this::drainLoop);
+        writer.start();
+    }
+
+    /**
+     * Sink writing to RESULTS_DIR/results.ndjson, or results-shard-&lt;i&gt;-of-&lt;n&gt;.ndjson in a sharded run;
+     * null when RESULTS_ENABLED is false. Closed by a shutdown hook.
+     */
+    public static ResultSink shared() {
+        if (!FrameworkConfig.RESULTS_ENABLED) return null;
+        ResultSink s = shared;
+        if (s == null) {
+            synchronized (ResultSink.class) {
+                s = shared;
+                if (s == null) {
+                    Path dir = Path.of(FrameworkConfig.RESULTS_DIR);
+                    deleteStale(dir, FrameworkConfig.SHARD_COUNT);
+                    s = new ResultSink(dir.resolve(fileName(FrameworkConfig.SHARD_INDEX, FrameworkConfig.SHARD_COUNT)));
+                    Runtime.getRuntime().addShutdownHook(new Thread(s::close, "result-sink-close"));
+                    shared = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Results file name of one shard of a run split into count shards.
+     */
+    public static String fileName(int index, int count) {
+        return count > 1 ? "results-shard-" + index + "-of-" + count + SUFFIX : "results" + SUFFIX;
+    }
+
+    /**
+     * Delete results files in dir that do not belong to a run with the given shard count. Files of the
+     * same layout are left alone: they are being written by the other shards, or truncated by them.
+     */
+    public static void deleteStale(Path dir, int count) {
+        if (!Files.isDirectory(dir)) return;
+        Set<String> current = new HashSet<>();
+        for (int i = 0; i < count; i++) current.add(fileName(i, count));
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : files.filter(p -> p.toString().endsWith(SUFFIX)).toList()) {
+                if (!current.contains(f.getFileName().toString())) Files.deleteIfExists(f);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not clear old results in {}: {}", dir, e.toString());
+        }
+    }
+
+    /**
+     * Steps recorded on this thread from now on belong to the given test (null to clear).
+     */
+    public static void enterTest(String name) {
+        if (name == null) currentTest.remove(); else currentTest.set(name);
+    }
+
+    public void test(String name, String status, long start, long durationMs, String error, Map<String, String> attachments) {
+        add(new Event("test", name, null, status, start, durationMs, FrameworkConfig.SHARD_INDEX,
+                Thread.currentThread().getName(), error, attachments));
+    }
+
+    public void step(String name, String status, long start, long durationMs, String error) {
+        add(new Event("step", name, currentTest.get(), status, start, durationMs, FrameworkConfig.SHARD_INDEX,
+                Thread.currentThread().getName(), error, Map.of()));
+    }
+
+    /**
+     * Wait until everything added so far is on disk, at most timeoutMs.
+     */
+    public boolean flush(long timeoutMs) {
+        long target = enqueued.get();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (written.get() < target && writer.isAlive()) {
+            if (System.nanoTime() > end) return false;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        return written.get() >= target;
+    }
+
+    /**
+     * Write what is queued and stop the writer.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    private void add(Event e) {
+        if (closed) return;
+        queue.offer(e);
+        enqueued.incrementAndGet();
+    }
+
+    private void drainLoop() {
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                while (true) {
+                    boolean stopping = closed;
+                    int n = 0;
+                    Event e;
+                    while ((e = queue.poll()) != null) {
+                        out.write(MAPPER.writeValueAsString(e));
+                        out.newLine();
+                        n++;
+                    }
+                    if (n > 0) {
+                        out.flush();
+                        written.addAndGet(n);
+                    }
+                    if (stopping) break;
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            closed = true; // stop queueing events nobody will write
+            logger.error("Result sink stopped writing {}: {}", file, e.toString());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.harel.shard;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Historical test durations (ms) keyed by "package.Class.method", kept in a properties file.
+ * New measurements are blended into the stored value (exponential moving average) so one slow
+ * run does not reshuffle the shards.
+ * Every shard must plan from the same history, so sharded JVMs never rewrite the main file:
+ * each writes "&lt;file&gt;.shard-&lt;index&gt;", and those are folded into the main file by the next
+ * unsharded run or by running this class's main (e.g. as a CI step after all shards finish).
+ */
+public final class DurationHistory {
+
+    private static final Logger logger = LogManager.getLogger(DurationHistory.class);
+    private static final double WEIGHT = 0.3;
+
+    private static volatile DurationHistory shared;
+
+    private final Path file;
+    private final Map<String, Long> known = new ConcurrentHashMap<>();
+    private final Map<String, Long> measured = new ConcurrentHashMap<>();
+
+    private final int shardIndex;
+    private final int shardCount;
+
+    public DurationHistory(Path file) {
+        this(file, 0, 1);
+    }
+
+    public DurationHistory(Path file, int shardIndex, int shardCount) {
+        this.file = file;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        known.putAll(read(file));
+    }
+
+    /**
+     * Fold shard files into the main history: DurationHistory [file].
+     */
+    public static void main(String[] args) {
+        new DurationHistory(Path.of(args.length > 0 ? args[0] : FrameworkConfig.SHARD_HISTORY)).save();
+    }
+
+    /**
+     * History stored in FrameworkConfig.SHARD_HISTORY.
+     */
+    public static DurationHistory shared() {
+        DurationHistory h = shared;
+        if (h == null) {
+            synchronized (DurationHistory.class) {
+                h = shared;
+                if (h == null) {
+                    h = new DurationHistory(Path.of(FrameworkConfig.SHARD_HISTORY),
+                            FrameworkConfig.SHARD_INDEX, FrameworkConfig.SHARD_COUNT);
+                    shared = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Known durations, as loaded plus what was measured in this JVM.
+     */
+    public Map<String, Long> durations() {
+        Map<String, Long> all = new TreeMap<>(known);
+        all.putAll(measured);
+        return all;
+    }
+
+    /**
+     * Record a measured duration for a test.
+     */
+    public void record(String test, long millis) {
+        measured.merge(test, millis, (a, b) -> blend(a, b));
+    }
+
+    /**
+     * Store this JVM's measurements: in its shard file when sharded, otherwise merged into the
+     * main file together with any shard files left by earlier sharded runs.
+     */
+    public synchronized void save() {
+        try {
+            if (shardCount > 1) {
+                if (!measured.isEmpty()) write(shardFile(shardIndex), new TreeMap<>(measured));
+                return;
+            }
+            Map<String, Long> merged = new TreeMap<>(read(file));
+            List<Path> shardFiles = shardFiles();
+            for (Path f : shardFiles) read(f).forEach((k, v) -> merged.merge(k, v, DurationHistory::blend));
+            measured.forEach((k, v) -> merged.merge(k, v, DurationHistory::blend));
+            if (shardFiles.isEmpty() && measured.isEmpty()) return;
+            write(file, merged);
+            for (Path f : shardFiles) Files.deleteIfExists(f);
+        } catch (IOException e) {
+            logger.warn("Could not save test durations to {}: {}", file, e.toString());
+        }
+    }
+
+    private Path shardFile(int index) {
+        return file.resolveSibling(file.getFileName() + ".shard-" + index);
+    }
+
+    private List<Path> shardFiles() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (!Files.isDirectory(dir)) return List.of();
+        String prefix = file.getFileName() + ".shard-";
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(f -> f.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static void write(Path target, Map<String, Long> durations) throws IOException {
+        Properties p = new Properties();
+        durations.forEach((k, v) -> p.setProperty(k, Long.toString(v)));
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "durations", ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            p.store(w, "Test durations in ms, used by ShardPlanner");
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Saved {} test duration(s) to {}", durations.size(), target);
+    }
+
+    private static long blend(long old, long now) {
+        return Math.round(old * (1 - WEIGHT) + now * WEIGHT);
+    }
+
+    private static Map<String, Long> read(Path file) {
+        Map<String, Long> out = new TreeMap<>();
+        if (!Files.isRegularFile(file)) return out;
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            p.load(r);
+        } catch (IOException e) {
+            logger.warn("Could not read test durations from {}: {}", file, e.toString());
+            return out;
+        }
+        p.forEach((k, v) -> {
+            try {
+                out.put((String) k, Long.parseLong(((String) v).trim()));
+            } catch (NumberFormatException ignored) {}
+        });
+        return out;
+    }
+}
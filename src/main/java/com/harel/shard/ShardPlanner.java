@@ -0,0 +1,85 @@
+package com.harel.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits test units across shards with longest-processing-time-first packing: units are taken
+ * from slowest to fastest and each goes to the shard with the least work so far.
+ * Units without history are estimated at the median of the known durations.
+ * The plan is deterministic, so every JVM computes the same split on its own.
+ */
+public final class ShardPlanner {
+
+    /** Estimate for units when nothing at all is known yet. */
+    static final long DEFAULT_MILLIS = 30_000;
+
+    /**
+     * A group of tests that must run in the same shard (e.g. linked by dependsOnMethods).
+     */
+    public record Unit(String id, List<String> tests) {}
+
+    /**
+     * One shard's units and estimated total duration.
+     */
+    public record Shard(int index, List<Unit> units, long estimatedMillis) {}
+
+    private final Map<String, Long> durations;
+
+    public ShardPlanner(Map<String, Long> durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * Plan the given units over the given number of shards.
+     */
+    public List<Shard> plan(Collection<Unit> units, int shards) {
+        if (shards < 1) throw new IllegalArgumentException("Shard count must be >= 1, was " + shards);
+        long fallback = median();
+        List<Unit> sorted = new ArrayList<>(units);
+        sorted.sort(Comparator.comparingLong((Unit u) -> estimate(u, fallback)).reversed()
+                .thenComparing(Unit::id));
+
+        List<List<Unit>> assigned = new ArrayList<>();
+        long[] load = new long[shards];
+        PriorityQueue<Integer> least = new PriorityQueue<>(
+                Comparator.comparingLong((Integer i) -> load[i]).thenComparing(i -> i));
+        for (int i = 0; i < shards; i++) {
+            assigned.add(new ArrayList<>());
+            least.add(i);
+        }
+        for (Unit u : sorted) {
+            int i = least.poll();
+            assigned.get(i).add(u);
+            load[i] += estimate(u, fallback);
+            least.add(i);
+        }
+
+        List<Shard> out = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) out.add(new Shard(i, assigned.get(i), load[i]));
+        return out;
+    }
+
+    /**
+     * Estimated duration of a unit: the sum of its tests.
+     */
+    public long estimate(Unit u) {
+        return estimate(u, median());
+    }
+
+    private long estimate(Unit u, long fallback) {
+        long sum = 0;
+        for (String t : u.tests()) sum += durations.getOrDefault(t, fallback);
+        return sum;
+    }
+
+    private long median() {
+        if (durations.isEmpty()) return DEFAULT_MILLIS;
+        long[] v = durations.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        return v[v.length / 2];
+    }
+}
@@ -14,6 +14,8 @@ import java.util.regex.Pattern;
  * Assertion helpers on top of TestNG.
  */
 public final class AssertUtils {
+    private static final Pattern LAST_INTEGER = Pattern.compile("(\\d+)(?!.*\\d)");
+
     private AssertUtils() {}
 
     public static void assertTrue(boolean condition, String message) {
@@ -56,7 +58,7 @@ public final class AssertUtils {
      */
     public static int extractLastInteger(String text) {
         if (text == null) return -1;
-        Matcher m = Pattern.compile("(\\d+)(?!.*\\d)").matcher(text.replace('\u200f',' '));
+        Matcher m = LAST_INTEGER.matcher(text.replace('\u200f',' '));
         return m.find() ? Integer.parseInt(m.group(1)) : -1;
     }
 
@@ -1,49 +1,116 @@
 package com.harel.utils;
 
+import com.harel.config.FrameworkConfig;
+import com.harel.metrics.FlightRecorder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.interactions.MoveTargetOutOfBoundsException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Click helpers with visibility/clickability wait and graceful fallbacks.
+ * Clicks are trusted WebDriver clicks unless the caller opts a locator into clickUntrusted, which
+ * dispatches an untrusted el.click() in a single in-page script. That path cannot tell whether the
+ * page ignored the event, so it is only for controls known to act on untrusted clicks.
+ * The path that worked for a locator is remembered in the StrategyCache and tried first next time.
  */
 public class Clicks {
     private static final Logger logger = LogManager.getLogger(Clicks.class);
 
+    /**
+     * Ways of clicking an element, in default fallback order.
+     */
+    public enum Path { ATOMIC, NATIVE, ACTIONS, JS }
+
+    private static final List<Path> ATOMIC_FIRST = List.of(Path.ATOMIC, Path.NATIVE, Path.ACTIONS, Path.JS);
+    private static final List<Path> NATIVE_ONLY = List.of(Path.NATIVE, Path.ACTIONS, Path.JS);
+
     private final WebDriver driver;
     private final Waits waits;
     private final Js js;
+    private String page;
+    private final StrategyCache strategies;
+    private final boolean atomic;
 
     /**
      * Create a Clicks helper bound to a driver and waits.
      */
     public Clicks(WebDriver driver, Waits waits) {
+        this(driver, waits, "default");
+    }
+
+    /**
+     * Create a Clicks helper whose remembered strategies are scoped to the given page.
+     */
+    public Clicks(WebDriver driver, Waits waits, String page) {
         this.driver = driver;
         this.waits = waits;
         this.js = new Js(driver);
+        this.page = page;
+        this.strategies = StrategyCache.shared();
+        this.atomic = "atomic".equalsIgnoreCase(FrameworkConfig.CLICK_MODE);
+    }
+
+    /**
+     * Scope the following clicks' remembered strategies to the given page or flow step.
+     */
+    public void setPage(String page) {
+        this.page = page;
     }
 
     /**
      * Click using standard click; fallback to Actions then JS if needed.
      */
     public void click(By by) {
-        WebElement el = waits.clickable(by);
-        js.scrollIntoViewCenter(el);
+        clickVia(by, NATIVE_ONLY);
+    }
+
+    /**
+     * Click a control whose handlers are known to act on untrusted events in one in-page script
+     * (unless click.mode=native); covered targets and locators the page cannot resolve fall back
+     * to the native paths.
+     */
+    public void clickUntrusted(By by) {
+        clickVia(by, atomic ? ATOMIC_FIRST : NATIVE_ONLY);
+    }
+
+    /**
+     * Resolve, wait, hit-test, scroll and click in one WebDriver round trip.
+     * Returns false when the click must be done natively (covered element, locator
+     * not resolvable in the page, or script failure).
+     */
+    public boolean clickAtomic(By by) {
+        String[] remote = DomScripts.remote(by);
+        if (remote == null) return false;
+
+        long t0 = System.nanoTime();
+        Duration timeout = waits.timeout(by);
+        Object res;
         try {
-            el.click();
-            logger.info("Clicked {}", by);
-        } catch (ElementClickInterceptedException | StaleElementReferenceException e1) {
-            logger.debug("Standard click failed, trying Actions. {}", e1.toString());
-            try {
-                new Actions(driver).moveToElement(el).click().perform();
-                logger.info("Clicked via Actions {}", by);
-            } catch (Exception e2) {
-                logger.debug("Actions click failed, falling back to JS. {}", e2.toString());
-                ((JavascriptExecutor) driver).executeScript("arguments[0].click();", el);
-                logger.info("Clicked via JS {}", by);
-            }
+            res = ((JavascriptExecutor) driver).executeAsyncScript(
+                    DomScripts.ATOMIC_CLICK, remote[0], remote[1], timeout.toMillis());
+        } catch (ScriptTimeoutException e) {
+            throw waits.timedOut("clickable", by, timeout, e);
+        } catch (JavascriptException | UnsupportedCommandException e) {
+            logger.debug("Atomic click unavailable for {}: {}", by, e.toString());
+            return false;
+        }
+
+        if (res == null) throw waits.timedOut("clickable", by, timeout, null);
+        Map<?, ?> result = (Map<?, ?>) res;
+        if (!result.containsKey("error")) waits.succeeded(by, t0);
+        if ("clicked".equals(result.get("status"))) return true;
+        if (result.containsKey("error")) {
+            logger.debug("Atomic click failed for {}: {}", by, result.get("error"));
+        } else {
+            logger.debug("Atomic click intercepted for {} by {}", by, result.get("cover"));
         }
+        return false;
     }
 
     /**
@@ -54,4 +121,54 @@ public class Clicks {
                 "[contains(normalize-space(.),'" + text + "') and not(@disabled)]");
         click(by);
     }
+
+    /**
+     * Try the candidate paths, remembered one first, until one clicks.
+     * Only intercepted, non-interactable, out-of-bounds and stale clicks move on to the next path;
+     * anything else (timeouts, a dead session) propagates.
+     */
+    private void clickVia(By by, List<Path> candidates) {
+        WebElement el = null;
+        WebDriverException last = null;
+        for (Path path : strategies.order(page, by, candidates)) {
+            try {
+                boolean clicked = switch (path) {
+                    case ATOMIC -> clickAtomic(by);
+                    case NATIVE -> {
+                        if (el == null) el = waits.clickable(by);
+                        js.scrollIntoViewCenter(el);
+                        el.click();
+                        yield true;
+                    }
+                    case ACTIONS -> {
+                        if (el == null) el = waits.clickable(by);
+                        new Actions(driver).moveToElement(el).click().perform();
+                        yield true;
+                    }
+                    case JS -> {
+                        if (el == null) el = waits.clickable(by);
+                        ((JavascriptExecutor) driver).executeScript("arguments[0].click();", el);
+                        yield true;
+                    }
+                };
+                if (clicked) {
+                    waits.cache().afterAction();
+                    strategies.success(page, by, path);
+                    FlightRecorder.record("click", by, path);
+                    logger.debug("Clicked {} via {}", by, path);
+                    return;
+                }
+            } catch (StaleElementReferenceException e) {
+                waits.cache().evict(by);
+                el = null;
+                last = e;
+            } catch (ElementNotInteractableException | MoveTargetOutOfBoundsException e) {
+                last = e;
+            }
+            strategies.failure(page, by, path);
+            FlightRecorder.record("click.failed", by, path);
+            logger.debug("{} click failed for {}, trying next path. {}", path, by, last);
+        }
+        throw last != null ? last : new ElementClickInterceptedException("No click path succeeded for " + by);
+    }
 }
@@ -0,0 +1,65 @@
+package com.harel.utils;
+
+import java.time.Duration;
+
+/**
+ * Overall time budget for a flow. Every wait in the flow is capped by what is left of it,
+ * so a broken run stops when the budget is spent instead of timing out locator by locator.
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE, Duration.ZERO);
+
+    private final long endNanos;
+    private final Duration budget;
+
+    private Deadline(long endNanos, Duration budget) {
+        this.endNanos = endNanos;
+        this.budget = budget;
+    }
+
+    /**
+     * Deadline the given budget from now; a zero or negative budget means no deadline.
+     */
+    public static Deadline after(Duration budget) {
+        if (budget.isZero() || budget.isNegative()) return NONE;
+        return new Deadline(System.nanoTime() + budget.toNanos(), budget);
+    }
+
+    /**
+     * A deadline that never expires.
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    public boolean bounded() {
+        return this != NONE;
+    }
+
+    public Duration budget() {
+        return budget;
+    }
+
+    public Duration remaining() {
+        if (!bounded()) return Duration.ofNanos(Long.MAX_VALUE);
+        return Duration.ofNanos(Math.max(0, endNanos - System.nanoTime()));
+    }
+
+    public boolean expired() {
+        return bounded() && System.nanoTime() >= endNanos;
+    }
+
+    /**
+     * The given timeout, shortened to what is left of the budget.
+     */
+    public Duration cap(Duration timeout) {
+        Duration left = remaining();
+        return timeout.compareTo(left) <= 0 ? timeout : left;
+    }
+
+    @Override
+    public String toString() {
+        return bounded() ? remaining().toMillis() + " ms left of " + budget.toSeconds() + " s" : "no deadline";
+    }
+}
@@ -0,0 +1,197 @@
+package com.harel.utils;
+
+import org.openqa.selenium.By;
+
+/**
+ * In-page JavaScript shared by the wait, click and input helpers.
+ * Scripts resolve locators in the browser so a whole check costs one WebDriver round trip.
+ */
+final class DomScripts {
+    private DomScripts() {}
+
+    /**
+     * Helper functions prepended to every in-page script:
+     * locator lookup, visibility/enabled checks and a MutationObserver-backed await.
+     */
+    static final String PRELUDE = """
+            function __find(using, value) {
+              if (using === 'xpath') {
+                return document.evaluate(value, document, null,
+                    XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+              }
+              return document.querySelector(value);
+            }
+            function __visible(el) {
+              if (!el || !el.isConnected) return false;
+              const s = getComputedStyle(el);
+              if (s.display === 'none' || s.visibility === 'hidden' || parseFloat(s.opacity) === 0) return false;
+              const r = el.getBoundingClientRect();
+              return r.width > 0 && r.height > 0;
+            }
+            function __enabled(el) {
+              return !el.disabled && el.getAttribute('aria-disabled') !== 'true';
+            }
+            function __await(test, timeout, cb) {
+              let first;
+              try { first = test(); } catch (e) { cb({error: String(e)}); return; }
+              if (first) { cb(first); return; }
+              let finished = false, obs, tick, timer;
+              const finish = (v) => {
+                if (finished) return;
+                finished = true;
+                obs.disconnect(); clearInterval(tick); clearTimeout(timer);
+                cb(v);
+              };
+              const probe = () => {
+                try { const v = test(); if (v) finish(v); } catch (e) { finish({error: String(e)}); }
+              };
+              obs = new MutationObserver(probe);
+              obs.observe(document.documentElement || document,
+                  {childList: true, subtree: true, attributes: true, characterData: true});
+              tick = setInterval(probe, 250);
+              timer = setTimeout(() => finish(null), timeout);
+            }
+            """;
+
+    /**
+     * Async wait: arguments = using, value, condition (visible|clickable|invisible), timeoutMs.
+     * Resolves {ok, el} when the condition holds, {error} on script failure, null on timeout.
+     */
+    static final String AWAIT_CONDITION = PRELUDE + """
+            const a = arguments, done = a[a.length - 1];
+            __await(() => {
+              const el = __find(a[0], a[1]);
+              if (a[2] === 'invisible') return __visible(el) ? null : {ok: true};
+              if (!__visible(el)) return null;
+              if (a[2] === 'clickable' && !__enabled(el)) return null;
+              return {ok: true, el: el};
+            }, a[3], done);
+            """;
+
+    /**
+     * Async atomic click: arguments = using, value, timeoutMs.
+     * Waits for a visible, enabled element, scrolls it to the centre, hit-tests it with
+     * elementFromPoint and dispatches the click. Resolves {status: clicked|intercepted, el, cover},
+     * {error} on script failure, or null on timeout.
+     */
+    static final String ATOMIC_CLICK = PRELUDE + """
+            const a = arguments, done = a[a.length - 1];
+            __await(() => {
+              const el = __find(a[0], a[1]);
+              return __visible(el) && __enabled(el) ? {el: el} : null;
+            }, a[2], (r) => {
+              if (!r || r.error) { done(r); return; }
+              const el = r.el;
+              el.scrollIntoView({block: 'center', inline: 'nearest'});
+              const rect = el.getBoundingClientRect();
+              const top = document.elementFromPoint(rect.left + rect.width / 2, rect.top + rect.height / 2);
+              if (!top || (top !== el && !el.contains(top))) {
+                done({status: 'intercepted', el: el, cover: top ? top.outerHTML.slice(0, 200) : 'none'});
+                return;
+              }
+              el.click();
+              done({status: 'clicked', el: el});
+            });
+            """;
+
+    /**
+     * Async fill: arguments = using, value, text, timeoutMs.
+     * Waits for the field, sets its value through the native prototype setter (so React's
+     * value tracker sees the change), fires input/change, blurs and reads the value back.
+     * Resolves {value, placeholder, el}, {error}, or null on timeout.
+     */
+    static final String FILL = PRELUDE + """
+            const a = arguments, done = a[a.length - 1];
+            __await(() => {
+              const el = __find(a[0], a[1]);
+              return __visible(el) ? {el: el} : null;
+            }, a[3], (r) => {
+              if (!r || r.error) { done(r); return; }
+              const el = __input(r.el);
+              if (!el) { done({error: 'no input or textarea in ' + r.el.tagName}); return; }
+              el.scrollIntoView({block: 'center', inline: 'nearest'});
+              el.focus();
+              const proto = el.tagName.toLowerCase() === 'textarea'
+                  ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;
+              Object.getOwnPropertyDescriptor(proto, 'value').set.call(el, a[2]);
+              el.dispatchEvent(new Event('input', {bubbles: true}));
+              el.dispatchEvent(new Event('change', {bubbles: true}));
+              el.blur();
+              setTimeout(() => done({value: el.value, placeholder: el.placeholder || '', el: el}), 0);
+            });
+            function __input(el) {
+              const tag = (el.tagName || '').toLowerCase();
+              return tag === 'input' || tag === 'textarea' ? el : el.querySelector('input,textarea');
+            }
+            """;
+
+    /**
+     * Async batched expectations: arguments = checks [{using, value, kind, arg, tolerance}], timeoutMs.
+     * Re-evaluates every check until all pass or the timeout hits and resolves
+     * {results: [{found, pass, actual}], timedOut}, or {error} on script failure.
+     */
+    static final String EXPECT_ALL = PRELUDE + """
+            const a = arguments, done = a[a.length - 1], checks = a[0];
+            const lastInt = (t) => { const m = /(\\d+)(?!.*\\d)/.exec(t.replace(/\\u200f/g, ' ')); return m ? m[1] : null; };
+            const evaluate = (c) => {
+              const el = __find(c.using, c.value);
+              if (!el) return {found: false, pass: false, actual: null};
+              const text = () => el.innerText || el.textContent || '';
+              switch (c.kind) {
+                case 'VISIBLE': { const v = __visible(el); return {found: true, pass: v, actual: String(v)}; }
+                case 'TEXT_CONTAINS': { const t = text(); return {found: true, pass: t.includes(c.arg), actual: t}; }
+                case 'ATTRIBUTE': {
+                  const v = el.getAttribute(c.arg.name);
+                  return {found: true, pass: v === c.arg.expected, actual: v};
+                }
+                case 'INTEGER': {
+                  const n = lastInt(text());
+                  return {found: true, pass: n !== null && Math.abs(Number(n) - c.arg) <= c.tolerance, actual: n};
+                }
+              }
+              return {found: true, pass: false, actual: 'unknown check ' + c.kind};
+            };
+            let last = null;
+            __await(() => {
+              last = checks.map(evaluate);
+              return last.every(r => r.pass) ? {results: last, timedOut: false} : null;
+            }, a[1], (r) => done(r ? r : {results: last, timedOut: true}));
+            """;
+
+    /**
+     * Focus the field behind arguments[0] and select its whole content, ready for CDP text insertion.
+     */
+    static final String FOCUS_SELECT_ALL = """
+            const host = arguments[0], tag = (host.tagName || '').toLowerCase();
+            const el = tag === 'input' || tag === 'textarea' ? host : host.querySelector('input,textarea');
+            if (!el) return false;
+            el.focus();
+            el.select();
+            return true;
+            """;
+
+    /**
+     * Blur the field behind arguments[0] and return its value.
+     */
+    static final String BLUR_READ = """
+            const host = arguments[0], tag = (host.tagName || '').toLowerCase();
+            const el = tag === 'input' || tag === 'textarea' ? host : host.querySelector('input,textarea');
+            if (!el) return null;
+            el.blur();
+            return el.value;
+            """;
+
+    /**
+     * Locator strategy and value usable by the in-page scripts, or null if the
+     * locator cannot be resolved in the page (callers then fall back to WebDriver).
+     */
+    static String[] remote(By by) {
+        if (by instanceof By.Remotable r) {
+            By.Remotable.Parameters p = r.getRemoteParameters();
+            if ("xpath".equals(p.using()) || "css selector".equals(p.using())) {
+                return new String[]{p.using(), String.valueOf(p.value())};
+            }
+        }
+        return null;
+    }
+}
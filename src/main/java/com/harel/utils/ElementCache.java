@@ -0,0 +1,131 @@
+package com.harel.utils;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.Cdp;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-page cache of resolved element handles, so a locator found visible once is not looked up
+ * again by the next read or keystroke on the same document.
+ * Entries are dropped when the top-level document navigates or the SPA route changes (CDP
+ * Page.frameNavigated / navigatedWithinDocument), at funnel step boundaries, and when a handle
+ * turns out to be stale. Without DevTools the cache is also cleared after every click.
+ */
+public final class ElementCache {
+
+    private static final Logger logger = LogManager.getLogger(ElementCache.class);
+
+    private static final Map<WebDriver, AtomicLong> navigations = new ConcurrentHashMap<>();
+    private static final Set<WebDriver> wired = ConcurrentHashMap.newKeySet();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder staleHandles = new LongAdder();
+
+    private record Entry(WebElement element, long navigation) {}
+
+    private final WebDriver driver;
+    private final Map<By, Entry> entries = new ConcurrentHashMap<>();
+
+    ElementCache(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Track top-level navigations and route changes of the driver's current DevTools target.
+     * Listeners are registered once per driver; calling again re-enables Page events on a new target.
+     */
+    public static void attach(WebDriver driver) {
+        if (!FrameworkConfig.ELEMENT_CACHE || !Cdp.supported(driver)) return;
+        if (wired.add(driver)) {
+            AtomicLong nav = navigations.computeIfAbsent(driver, d -> new AtomicLong());
+            Cdp.on(driver, "Page.frameNavigated", e -> {
+                if (e.get("frame") instanceof Map<?, ?> frame && frame.get("parentId") == null) nav.incrementAndGet();
+            });
+            Cdp.on(driver, "Page.navigatedWithinDocument", e -> nav.incrementAndGet());
+        }
+        Cdp.send(driver, "Page.enable", Map.of());
+    }
+
+    /**
+     * Stop tracking a driver that is being quit.
+     */
+    public static void detach(WebDriver driver) {
+        wired.remove(driver);
+        navigations.remove(driver);
+    }
+
+    /**
+     * Cached handle for the locator if it was resolved on the current document, else null.
+     */
+    WebElement get(By by) {
+        if (!FrameworkConfig.ELEMENT_CACHE) return null;
+        Entry e = entries.get(by);
+        if (e != null && e.navigation() == navigation()) {
+            hits.increment();
+            return e.element();
+        }
+        if (e != null) entries.remove(by, e);
+        misses.increment();
+        return null;
+    }
+
+    void put(By by, WebElement element) {
+        if (FrameworkConfig.ELEMENT_CACHE && element != null) entries.put(by, new Entry(element, navigation()));
+    }
+
+    /**
+     * Drop a handle that turned out to be stale.
+     */
+    void evict(By by) {
+        if (entries.remove(by) != null) staleHandles.increment();
+    }
+
+    /**
+     * Drop every handle, e.g. at a step boundary.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Drop every handle unless navigations are tracked through DevTools; called after actions
+     * that may replace the page.
+     */
+    void afterAction() {
+        if (!navigations.containsKey(driver)) entries.clear();
+    }
+
+    public static long hits() {
+        return hits.sum();
+    }
+
+    public static long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Log hit rate and the lookups saved across the run. Each hit saves at least the
+     * wait-and-find round trip a visible wait costs.
+     */
+    public static void logSummary() {
+        long h = hits.sum(), m = misses.sum();
+        if (h + m == 0) return;
+        logger.info("Element cache: {} hit(s), {} miss(es) ({}% hit rate), {} stale handle(s); ~{} round trip(s) saved",
+                h, m, Math.round(100.0 * h / (h + m)), staleHandles.sum(), h);
+    }
+
+    private long navigation() {
+        AtomicLong n = navigations.get(driver);
+        return n == null ? 0 : n.get();
+    }
+}
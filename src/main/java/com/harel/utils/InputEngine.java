@@ -0,0 +1,92 @@
+package com.harel.utils;
+
+import com.harel.metrics.FlightRecorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Fast input filling for plain inputs and masked MUI date fields.
+ * The common case is one round trip: wait, native value setter with React-compatible
+ * events, and read-back in the same script. If the field rejects that value, the text is
+ * inserted through CDP Input.insertText (which the page sees as real typing) and verified.
+ */
+public class InputEngine {
+
+    private static final Logger logger = LogManager.getLogger(InputEngine.class);
+
+    private final WebDriver driver;
+    private final Waits waits;
+
+    /**
+     * Create an InputEngine bound to a driver and waits helper.
+     */
+    public InputEngine(WebDriver driver, Waits waits) {
+        this.driver = driver;
+        this.waits = waits;
+    }
+
+    /**
+     * Fill a date in dd/MM/yyyy format. Returns true when the field holds the expected value.
+     */
+    public boolean fillDate(By by, LocalDate date) {
+        return fill(by, SendKeys.UI_DATE_FMT.format(date), SendKeys.UI_DATE_DIGITS_FMT.format(date));
+    }
+
+    /**
+     * Fill a value. Returns true when the field holds the value; false means the caller
+     * should fall back to keyboard typing.
+     */
+    public boolean fill(By by, String value) {
+        return fill(by, value, value);
+    }
+
+    private boolean fill(By by, String value, String maskedDigits) {
+        String[] remote = DomScripts.remote(by);
+        if (remote == null) return false;
+
+        long t0 = System.nanoTime();
+        Duration timeout = waits.timeout(by);
+        Object res;
+        try {
+            res = ((JavascriptExecutor) driver).executeAsyncScript(
+                    DomScripts.FILL, remote[0], remote[1], value, timeout.toMillis());
+        } catch (ScriptTimeoutException e) {
+            throw waits.timedOut("visible", by, timeout, e);
+        } catch (JavascriptException | UnsupportedCommandException e) {
+            logger.debug("Fast fill unavailable for {}: {}", by, e.toString());
+            return false;
+        }
+        if (res == null) throw waits.timedOut("visible", by, timeout, null);
+
+        Map<?, ?> result = (Map<?, ?>) res;
+        if (result.containsKey("error")) {
+            logger.debug("Fast fill failed for {}: {}", by, result.get("error"));
+            return false;
+        }
+        waits.succeeded(by, t0);
+        waits.cache().put(by, (WebElement) result.get("el"));
+        if (value.equals(result.get("value"))) return true;
+
+        // The field reformatted or rejected a programmatic value; type it through CDP instead.
+        if (!(driver instanceof HasCdp cdp)) return false;
+        WebElement el = (WebElement) result.get("el");
+        String placeholder = String.valueOf(result.get("placeholder")).toLowerCase();
+        String text = placeholder.contains("dd/mm/yyyy") ? maskedDigits : value;
+        try {
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+            if (!Boolean.TRUE.equals(js.executeScript(DomScripts.FOCUS_SELECT_ALL, el))) return false;
+            FlightRecorder.record("input.insertText", by, null);
+            cdp.executeCdpCommand("Input.insertText", Map.of("text", text));
+            return value.equals(js.executeScript(DomScripts.BLUR_READ, el));
+        } catch (WebDriverException e) {
+            logger.debug("CDP insertText failed for {}: {}", by, e.toString());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.harel.utils;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.metrics.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-locator wait timeouts learned from how long successful waits took in earlier runs.
+ * A locator with enough history gets p99 × headroom + a fixed floor, capped at the explicit
+ * timeout; one without history gets the explicit timeout. The stored p99 is blended with each
+ * run's (moving average), but never below the latest run's, so it only shrinks gradually.
+ * History is kept per target site (host and port of BASE_URL), so fast replay or local runs
+ * never shorten the timeouts of live runs.
+ */
+public final class LearnedTimeouts {
+
+    private static final Logger logger = LogManager.getLogger(LearnedTimeouts.class);
+    private static final double WEIGHT = 0.3;
+
+    private static volatile LearnedTimeouts shared;
+
+    private record Learned(long p99Millis, long samples) {}
+
+    private final Path file;
+    private final String scope;
+    private final Map<String, Learned> known = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> measured = new ConcurrentHashMap<>();
+
+    /**
+     * Create a store for the configured target backed by the given file, loading it if it exists.
+     */
+    public LearnedTimeouts(Path file) {
+        this(file, URI.create(FrameworkConfig.BASE_URL).getAuthority());
+    }
+
+    /**
+     * Create a store for the given target (e.g. "localhost:8089") backed by the given file.
+     * Entries of other targets in the file are kept but not used.
+     */
+    public LearnedTimeouts(Path file, String scope) {
+        this.file = file;
+        this.scope = scope;
+        load();
+    }
+
+    /**
+     * Shared store backed by FrameworkConfig.WAIT_HISTORY.
+     */
+    public static LearnedTimeouts shared() {
+        LearnedTimeouts t = shared;
+        if (t == null) {
+            synchronized (LearnedTimeouts.class) {
+                t = shared;
+                if (t == null) {
+                    t = new LearnedTimeouts(Path.of(FrameworkConfig.WAIT_HISTORY));
+                    shared = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Timeout to use when waiting for the locator.
+     */
+    public Duration timeoutFor(By by) {
+        Duration max = Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC);
+        if (!FrameworkConfig.WAIT_LEARNED) return max;
+        String key = key(by);
+        Learned stored = known.get(key);
+        LatencyHistogram run = measured.get(key);
+        long samples = (stored == null ? 0 : stored.samples()) + (run == null ? 0 : run.count());
+        if (samples < FrameworkConfig.WAIT_MIN_SAMPLES) return max;
+
+        long p99 = Math.max(stored == null ? 0 : stored.p99Millis(),
+                run == null ? 0 : run.quantileNanos(0.99) / 1_000_000);
+        long millis = (long) (p99 * FrameworkConfig.WAIT_HEADROOM) + FrameworkConfig.WAIT_FLOOR_MS;
+        return millis >= max.toMillis() ? max : Duration.ofMillis(millis);
+    }
+
+    /**
+     * Record how long a successful wait for the locator took.
+     */
+    public void record(By by, long nanos) {
+        measured.computeIfAbsent(key(by), k -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Blend this run's p99s into the stored ones and write the file.
+     */
+    public synchronized void save() {
+        if (measured.isEmpty()) return;
+        measured.forEach((key, h) -> {
+            long runP99 = h.quantileNanos(0.99) / 1_000_000;
+            known.merge(key, new Learned(runP99, h.count()), (old, now) -> new Learned(
+                    Math.max(now.p99Millis(), Math.round(old.p99Millis() * (1 - WEIGHT) + now.p99Millis() * WEIGHT)),
+                    old.samples() + now.samples()));
+        });
+        measured.clear();
+
+        Properties props = new Properties();
+        new TreeMap<>(known).forEach((k, v) -> props.setProperty(k, v.p99Millis() + "," + v.samples()));
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(w, "Wait p99 (ms) and sample count per target and locator");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved learned wait timeouts for {} locator(s) to {}", known.size(), file);
+        } catch (IOException e) {
+            logger.warn("Could not save learned wait timeouts to {}: {}", file, e.toString());
+        }
+    }
+
+    private String key(By by) {
+        return scope + " " + by;
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            logger.warn("Could not read learned wait timeouts {}: {}", file, e.toString());
+            return;
+        }
+        props.forEach((k, v) -> {
+            String[] parts = ((String) v).split(",");
+            try {
+                known.put((String) k, new Learned(Long.parseLong(parts[0].trim()),
+                        parts.length > 1 ? Long.parseLong(parts[1].trim()) : 1));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring learned timeout {}={}", k, v);
+            }
+        });
+        logger.info("Loaded learned wait timeouts for {} locator(s) from {}", known.size(), file);
+    }
+}
@@ -0,0 +1,235 @@
+package com.harel.utils;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.metrics.FlightRecorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batched soft assertions for one page.
+ * Expectations are declared up front and evaluated together by a single async script that
+ * waits until all of them hold (or the timeout hits), so a page check costs one round trip
+ * however many expectations it has. Locators the page cannot resolve fall back to WebDriver.
+ */
+public class PageExpectations {
+    private static final Logger logger = LogManager.getLogger(PageExpectations.class);
+
+    /**
+     * Kinds of expectation.
+     */
+    public enum Kind { VISIBLE, TEXT_CONTAINS, ATTRIBUTE, INTEGER }
+
+    private record Expectation(By by, Kind kind, Object arg, int tolerance, String message) {}
+
+    /**
+     * Outcome of one expectation. actual is the observed text, attribute value or number,
+     * or null when the element was not found; after a script timeout every outcome is failed.
+     */
+    public record Outcome(By by, Kind kind, String message, boolean found, boolean passed, String actual) {
+        public String describe() {
+            return message + " [" + kind + " " + by + "] " + (found ? "actual='" + actual + "'" : "element not found");
+        }
+    }
+
+    /**
+     * Outcomes in declaration order; timedOut is true when not all expectations held in time.
+     */
+    public record Report(List<Outcome> outcomes, boolean timedOut) {
+        public boolean passed() {
+            return outcomes.stream().allMatch(Outcome::passed);
+        }
+
+        public List<Outcome> failures() {
+            return outcomes.stream().filter(o -> !o.passed()).toList();
+        }
+
+        public Outcome get(int index) {
+            return outcomes.get(index);
+        }
+
+        /**
+         * Number read by the INTEGER expectation at the given index, or -1 if none.
+         */
+        public int integer(int index) {
+            String actual = outcomes.get(index).actual();
+            return actual == null ? -1 : Integer.parseInt(actual);
+        }
+
+        /**
+         * Fail with every failed expectation listed, not just the first.
+         */
+        public Report assertAll() {
+            List<Outcome> failed = failures();
+            if (failed.isEmpty()) return this;
+            StringBuilder sb = new StringBuilder(failed.size() + " of " + outcomes.size() + " expectation(s) failed:");
+            for (Outcome o : failed) sb.append("\n  - ").append(o.describe());
+            throw new AssertionError(sb.toString());
+        }
+    }
+
+    private final WebDriver driver;
+    private final Duration timeout;
+    private final List<Expectation> expectations = new ArrayList<>();
+
+    /**
+     * Expectations on the driver's current page, waiting up to the explicit timeout.
+     */
+    public PageExpectations(WebDriver driver) {
+        this(driver, Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC));
+    }
+
+    /**
+     * Expectations on the driver's current page, waiting up to the given timeout.
+     */
+    public PageExpectations(WebDriver driver, Duration timeout) {
+        this.driver = driver;
+        this.timeout = timeout;
+    }
+
+    public PageExpectations visible(By by, String message) {
+        return add(new Expectation(by, Kind.VISIBLE, null, 0, message));
+    }
+
+    public PageExpectations textContains(By by, String needle, String message) {
+        return add(new Expectation(by, Kind.TEXT_CONTAINS, needle, 0, message));
+    }
+
+    public PageExpectations attribute(By by, String name, String expected, String message) {
+        return add(new Expectation(by, Kind.ATTRIBUTE, Map.of("name", name, "expected", expected), 0, message));
+    }
+
+    /**
+     * Expect the last integer in the element's text to be within tolerance of expected.
+     */
+    public PageExpectations integer(By by, long expected, int tolerance, String message) {
+        return add(new Expectation(by, Kind.INTEGER, expected, tolerance, message));
+    }
+
+    /**
+     * Evaluate all expectations and return their outcomes without failing.
+     */
+    public Report check() {
+        Report report = null;
+        if (expectations.stream().allMatch(e -> DomScripts.remote(e.by()) != null)) {
+            report = checkInPage();
+        }
+        if (report == null) report = checkViaWebDriver();
+        FlightRecorder.record("expect", expectations.size() + " check(s)",
+                report.passed() ? "passed" : report.failures().size() + " failed");
+        return report;
+    }
+
+    /**
+     * Evaluate all expectations and fail with every failed one listed.
+     */
+    public Report verify() {
+        return check().assertAll();
+    }
+
+    private PageExpectations add(Expectation e) {
+        expectations.add(e);
+        return this;
+    }
+
+    /**
+     * One async script for all expectations. Returns null when the caller should fall back.
+     */
+    private Report checkInPage() {
+        List<Map<String, Object>> checks = new ArrayList<>(expectations.size());
+        for (Expectation e : expectations) {
+            String[] remote = DomScripts.remote(e.by());
+            Map<String, Object> c = new HashMap<>();
+            c.put("using", remote[0]);
+            c.put("value", remote[1]);
+            c.put("kind", e.kind().name());
+            c.put("arg", e.arg());
+            c.put("tolerance", e.tolerance());
+            checks.add(c);
+        }
+
+        Object res;
+        try {
+            res = ((JavascriptExecutor) driver).executeAsyncScript(DomScripts.EXPECT_ALL, checks, timeout.toMillis());
+        } catch (ScriptTimeoutException e) {
+            // The page did not settle within the script timeout: that is a failed check, and
+            // re-running it through WebDriver would only wait as long again.
+            logger.warn("In-page expectations timed out: {}", e.toString());
+            List<Outcome> unknown = new ArrayList<>(expectations.size());
+            for (Expectation x : expectations) {
+                unknown.add(new Outcome(x.by(), x.kind(), x.message(), true, false, "no result, script timed out"));
+            }
+            return new Report(unknown, true);
+        } catch (JavascriptException | UnsupportedCommandException e) {
+            logger.debug("In-page expectations unavailable, using WebDriver. {}", e.toString());
+            return null;
+        }
+        Map<?, ?> map = (Map<?, ?>) res;
+        if (map == null || map.containsKey("error")) {
+            logger.debug("In-page expectations failed, using WebDriver. {}", map == null ? null : map.get("error"));
+            return null;
+        }
+
+        List<?> results = (List<?>) map.get("results");
+        List<Outcome> outcomes = new ArrayList<>(expectations.size());
+        for (int i = 0; i < expectations.size(); i++) {
+            Expectation e = expectations.get(i);
+            Map<?, ?> r = (Map<?, ?>) results.get(i);
+            Object actual = r.get("actual");
+            outcomes.add(new Outcome(e.by(), e.kind(), e.message(), Boolean.TRUE.equals(r.get("found")),
+                    Boolean.TRUE.equals(r.get("pass")), actual == null ? null : String.valueOf(actual)));
+        }
+        return new Report(outcomes, Boolean.TRUE.equals(map.get("timedOut")));
+    }
+
+    private Report checkViaWebDriver() {
+        List<Outcome> last = new ArrayList<>();
+        try {
+            new WebDriverWait(driver, timeout).until(d -> {
+                last.clear();
+                for (Expectation e : expectations) last.add(evaluate(e));
+                return last.stream().allMatch(Outcome::passed);
+            });
+            return new Report(List.copyOf(last), false);
+        } catch (TimeoutException e) {
+            return new Report(List.copyOf(last), true);
+        }
+    }
+
+    private Outcome evaluate(Expectation e) {
+        List<WebElement> found = driver.findElements(e.by());
+        if (found.isEmpty()) return new Outcome(e.by(), e.kind(), e.message(), false, false, null);
+        WebElement el = found.get(0);
+        try {
+            return switch (e.kind()) {
+                case VISIBLE -> {
+                    boolean v = el.isDisplayed();
+                    yield new Outcome(e.by(), e.kind(), e.message(), true, v, String.valueOf(v));
+                }
+                case TEXT_CONTAINS -> {
+                    String t = el.getText();
+                    yield new Outcome(e.by(), e.kind(), e.message(), true, t.contains((String) e.arg()), t);
+                }
+                case ATTRIBUTE -> {
+                    Map<?, ?> arg = (Map<?, ?>) e.arg();
+                    String v = el.getDomAttribute((String) arg.get("name"));
+                    yield new Outcome(e.by(), e.kind(), e.message(), true, arg.get("expected").equals(v), v);
+                }
+                case INTEGER -> {
+                    int n = AssertUtils.extractLastInteger(el.getText());
+                    boolean ok = n >= 0 && Math.abs(n - (Long) e.arg()) <= e.tolerance();
+                    yield new Outcome(e.by(), e.kind(), e.message(), true, ok, n < 0 ? null : String.valueOf(n));
+                }
+            };
+        } catch (StaleElementReferenceException stale) {
+            return new Outcome(e.by(), e.kind(), e.message(), false, false, null);
+        }
+    }
+}
@@ -1,54 +1,129 @@
 package com.harel.utils;
 
+import com.harel.config.FrameworkConfig;
+import com.harel.metrics.FlightRecorder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.*;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
+import java.util.function.BooleanSupplier;
 
 /**
  * Utility class for sending text and dates into input fields.
  * Provides clearing strategies, date handling, and JS fallback when needed.
+ * In fast input mode values go through InputEngine first; keyboard typing is the fallback.
+ * The path that worked for a locator is remembered in the StrategyCache and tried first next time.
  */
 public class SendKeys {
 
     private static final Logger logger = LogManager.getLogger(SendKeys.class);
 
+    /**
+     * Ways of setting a value, in default fallback order.
+     */
+    public enum Path { FAST, TYPE, JS_SET }
+
+    private static final List<Path> FAST_FIRST = List.of(Path.FAST, Path.TYPE, Path.JS_SET);
+    private static final List<Path> TYPED_ONLY = List.of(Path.TYPE, Path.JS_SET);
+
     private final WebDriver driver;
     private final Waits waits;
+    private final InputEngine input;
+    private String page;
+    private final StrategyCache strategies;
+    private final boolean fast;
 
-    private static final DateTimeFormatter UI_DATE_FMT =
+    static final DateTimeFormatter UI_DATE_FMT =
             DateTimeFormatter.ofPattern("dd/MM/yyyy").withLocale(new Locale("he", "IL"));
-    private static final DateTimeFormatter UI_DATE_DIGITS_FMT =
+    static final DateTimeFormatter UI_DATE_DIGITS_FMT =
             DateTimeFormatter.ofPattern("ddMMyyyy").withLocale(new Locale("he", "IL"));
 
     /**
      * Create a SendKeys helper bound to a driver and waits helper.
      */
     public SendKeys(WebDriver driver, Waits waits) {
+        this(driver, waits, "default");
+    }
+
+    /**
+     * Create a SendKeys helper whose remembered strategies are scoped to the given page.
+     */
+    public SendKeys(WebDriver driver, Waits waits, String page) {
         this.driver = driver;
         this.waits = waits;
+        this.input = new InputEngine(driver, waits);
+        this.page = page;
+        this.strategies = StrategyCache.shared();
+        this.fast = "fast".equalsIgnoreCase(FrameworkConfig.INPUT_MODE);
+    }
+
+    /**
+     * Scope the following inputs' remembered strategies to the given page or flow step.
+     */
+    public void setPage(String page) {
+        this.page = page;
     }
 
     /**
      * Type a LocalDate into an element using dd/MM/yyyy format.
      */
     public void setText(By by, LocalDate date) {
-        String value = UI_DATE_FMT.format(date);
-        setText(by, value);
+        setVia(by, UI_DATE_FMT.format(date), () -> input.fillDate(by, date));
     }
 
     /**
-     * Type a string into an element with robust clear and JS fallback.
+     * Set a string into an element: fast fill when enabled, otherwise robust typing with JS fallback.
      */
     public void setText(By by, String value) {
-        WebElement el = new WebDriverWait(driver, Duration.ofSeconds(15))
-                .until(ExpectedConditions.visibilityOfElementLocated(by));
+        setVia(by, value, () -> input.fill(by, value));
+    }
+
+    /**
+     * Try the candidate paths, remembered one first, until the field holds the value.
+     */
+    private void setVia(By by, String value, BooleanSupplier fastFill) {
+        for (Path path : strategies.order(page, by, fast ? FAST_FIRST : TYPED_ONLY)) {
+            boolean ok;
+            try {
+                ok = switch (path) {
+                    case FAST -> fastFill.getAsBoolean();
+                    case TYPE -> typeText(by, value);
+                    case JS_SET -> {
+                        waits.onVisible(by, el -> {
+                            jsSetValue(el, value);
+                            return null;
+                        });
+                        yield value.equals(readValue(by));
+                    }
+                };
+            } catch (TimeoutException e) {
+                throw e;
+            } catch (WebDriverException e) {
+                logger.debug("{} input failed for {}: {}", path, by, e.toString());
+                ok = false;
+            }
+            if (ok) {
+                strategies.success(page, by, path);
+                FlightRecorder.record("input", by, path);
+                logger.debug("Set '{}' into {} via {}", value, by, path);
+                return;
+            }
+            strategies.failure(page, by, path);
+            FlightRecorder.record("input.failed", by, path);
+        }
+        FlightRecorder.record("input.unverified", by, value);
+        logger.warn("Could not verify '{}' in {} after all input paths", value, by);
+    }
+
+    /**
+     * Type a string into an element with robust clear; returns whether the value stuck.
+     */
+    private boolean typeText(By by, String value) {
+        WebElement el = waits.visible(by);
 
         scrollIntoViewCenter(el);
         try {
@@ -59,25 +134,13 @@ public class SendKeys {
 
         try {
             el.sendKeys(value);
-        } catch (InvalidElementStateException ex) {
-            logger.debug("InvalidElementState (incl. not interactable): fallback to JS set. {}", ex.toString());
-            jsSetValue(el, value);
         } catch (StaleElementReferenceException stale) {
             logger.warn("Stale during sendKeys, retrying once...");
-            WebElement fresh = new WebDriverWait(driver, Duration.ofSeconds(5))
-                    .until(ExpectedConditions.visibilityOfElementLocated(by));
-            try {
-                fresh.sendKeys(value);
-            } catch (Exception e) {
-                jsSetValue(fresh, value);
-            }
+            waits.cache().evict(by);
+            waits.visible(by).sendKeys(value);
         }
 
-        String read = readValue(by);
-        if (!value.equals(read)) {
-            jsSetValue(el, value);
-        }
-        logger.info("Set '{}' into {}", value, by);
+        return value.equals(readValue(by));
     }
 
     /**
@@ -87,6 +150,11 @@ public class SendKeys {
      * Includes JS fallback if typing fails.
      */
     public void setDateAutodetect(By by, LocalDate date) {
+        if (fast && input.fillDate(by, date)) {
+            FlightRecorder.record("date", by, "fast");
+            logger.debug("Date set (fast) '{}' into {}", date, by);
+            return;
+        }
         WebElement el = waits.visible(by);
         scrollIntoViewCenter(el);
         try {
@@ -126,39 +194,41 @@ public class SendKeys {
         if (!expected.equals(read)) {
             jsSetValue(el, expected);
         }
-        logger.info("Date set (auto) '{}' into {}", expected, by);
+        FlightRecorder.record("date", by, masked ? "typed-masked" : "typed");
+        logger.debug("Date set (auto) '{}' into {}", expected, by);
     }
 
     /**
      * Press Enter on the given element.
      */
     public void pressEnter(By by) {
-        waits.visible(by).sendKeys(Keys.ENTER);
+        press(by, Keys.ENTER);
     }
 
     /**
      * Press Tab on the given element.
      */
     public void pressTab(By by) {
-        waits.visible(by).sendKeys(Keys.TAB);
+        press(by, Keys.TAB);
     }
 
     /**
      * Press Escape on the given element.
      */
     public void pressEscape(By by) {
-        waits.visible(by).sendKeys(Keys.ESCAPE);
+        press(by, Keys.ESCAPE);
     }
 
     /**
      * Read the input's value or fallback to its text.
      */
     public String readValue(By by) {
-        WebElement el = waits.visible(by);
-        String v = safeAttr(el, "value");
-        if (v != null && !v.isEmpty()) return v;
-        String t = safeText(el);
-        return t == null ? "" : t;
+        return waits.onVisible(by, el -> {
+            String v = safeProperty(el, "value");
+            if (v != null && !v.isEmpty()) return v;
+            String t = el.getText();
+            return t == null ? "" : t.trim();
+        });
     }
 
     /**
@@ -173,6 +243,13 @@ public class SendKeys {
         hardClear(el);
     }
 
+    private void press(By by, Keys key) {
+        waits.onVisible(by, el -> {
+            el.sendKeys(key);
+            return null;
+        });
+    }
+
     private void hardClear(WebElement el) {
         try {
             el.sendKeys(Keys.chord(Keys.CONTROL, "a"));
@@ -208,18 +285,19 @@ public class SendKeys {
         );
     }
 
-    private String safeAttr(WebElement el, String name) {
+    private String safeProperty(WebElement el, String name) {
         try {
-            return el.getAttribute(name);
+            return el.getDomProperty(name);
+        } catch (StaleElementReferenceException e) {
+            throw e; // onVisible re-resolves the element
         } catch (Exception e) {
             return null;
         }
     }
 
-    private String safeText(WebElement el) {
+    private String safeAttr(WebElement el, String name) {
         try {
-            String t = el.getText();
-            return t == null ? null : t.trim();
+            return el.getAttribute(name);
         } catch (Exception e) {
             return null;
         }
@@ -0,0 +1,135 @@
+package com.harel.utils;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which interaction path last worked for each (page, locator) pair,
+ * so the next attempt goes straight to it. A path that starts failing is demoted
+ * and the default order applies again. Persisted to a small properties file.
+ */
+public final class StrategyCache {
+
+    private static final Logger logger = LogManager.getLogger(StrategyCache.class);
+
+    private static volatile StrategyCache shared;
+
+    private final Path file;
+    private final Map<String, String> preferred = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * Create a cache backed by the given file, loading it if it exists.
+     */
+    public StrategyCache(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Shared cache backed by FrameworkConfig.STRATEGY_CACHE_FILE.
+     */
+    public static StrategyCache shared() {
+        StrategyCache c = shared;
+        if (c == null) {
+            synchronized (StrategyCache.class) {
+                c = shared;
+                if (c == null) {
+                    c = new StrategyCache(Path.of(FrameworkConfig.STRATEGY_CACHE_FILE));
+                    shared = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Candidates in the order to try them: the remembered path first, then the rest as given.
+     */
+    public <S extends Enum<S>> List<S> order(String page, By by, List<S> candidates) {
+        if (candidates.isEmpty()) return candidates;
+        String name = preferred.get(key(page, by, candidates.get(0)));
+        if (name == null) return candidates;
+        List<S> ordered = new ArrayList<>(candidates.size());
+        for (S s : candidates) {
+            if (s.name().equals(name)) ordered.add(0, s);
+            else ordered.add(s);
+        }
+        return ordered;
+    }
+
+    /**
+     * Record that a path worked; it becomes the preferred one.
+     */
+    public void success(String page, By by, Enum<?> path) {
+        String prev = preferred.put(key(page, by, path), path.name());
+        if (!path.name().equals(prev)) dirty = true;
+    }
+
+    /**
+     * Record that a path failed; demote it if it was the preferred one.
+     */
+    public void failure(String page, By by, Enum<?> path) {
+        if (preferred.remove(key(page, by, path), path.name())) dirty = true;
+    }
+
+    /**
+     * Write the cache to disk if it changed since the last load or save.
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        Properties props = new Properties();
+        props.putAll(new TreeMap<>(preferred));
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(w, "Preferred interaction path per page and locator");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            logger.info("Saved {} interaction strategies to {}", preferred.size(), file);
+        } catch (IOException e) {
+            logger.warn("Could not save strategy cache to {}: {}", file, e.toString());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            logger.warn("Could not read strategy cache {}: {}", file, e.toString());
+            return;
+        }
+        props.forEach((k, v) -> preferred.put((String) k, (String) v));
+        logger.info("Loaded {} interaction strategies from {}", preferred.size(), file);
+    }
+
+    /**
+     * Key per helper (e.g. "Clicks.Path"), page and locator; the nested enums are all named Path,
+     * so the enclosing class keeps click and input strategies of one locator apart.
+     */
+    private static String key(String page, By by, Enum<?> path) {
+        Class<?> type = path.getDeclaringClass();
+        String owner = type.getEnclosingClass() == null ? "" : type.getEnclosingClass().getSimpleName() + ".";
+        return owner + type.getSimpleName() + "|" + page + "|" + by;
+    }
+}
@@ -0,0 +1,172 @@
+package com.harel.utils;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.Cdp;
+import com.harel.metrics.FlightRecorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells when a page transition has settled: no document, XHR/fetch or script request in flight,
+ * the route committed, and nothing new for a short quiet window.
+ * State comes from CDP Network events and the Page navigation events (full navigations and
+ * history/hash route changes), so waiting costs no WebDriver round trips.
+ * Requests in flight for longer than SETTLE_STUCK_MS (long polls, hung beacons) are ignored.
+ */
+public final class TransitionTracker {
+
+    private static final Logger logger = LogManager.getLogger(TransitionTracker.class);
+
+    private static final Map<WebDriver, TransitionTracker> trackers = new ConcurrentHashMap<>();
+    private static final Set<String> TRACKED_TYPES = Set.of("Document", "XHR", "Fetch", "Script");
+
+    private final Map<String, Long> inFlight = new HashMap<>();
+    private long lastActivity = System.nanoTime();
+    private long routeChanges;
+    private String route = "";
+
+    /**
+     * Outcome of a wait: whether it settled, how long it took, requests still pending,
+     * and whether the route changed since the mark.
+     */
+    public record Settled(boolean settled, long millis, int pending, boolean routeChanged, String route) {}
+
+    /**
+     * A tracker not bound to a browser; feed it with requestSent, requestDone and routeChanged.
+     */
+    public TransitionTracker() {}
+
+    /**
+     * Track the driver's current DevTools target. Listeners are registered once per driver;
+     * calling again after the session moved to another target forgets the old target's requests.
+     */
+    public static void attach(WebDriver driver) {
+        if (!FrameworkConfig.SETTLE_ENABLED || !Cdp.supported(driver)) return;
+        TransitionTracker existing = trackers.get(driver);
+        if (existing == null) {
+            TransitionTracker t = new TransitionTracker();
+            t.listen(driver);
+            trackers.put(driver, t);
+        } else {
+            existing.forget();
+        }
+        Cdp.send(driver, "Network.enable", Map.of());
+        Cdp.send(driver, "Page.enable", Map.of());
+    }
+
+    /**
+     * Stop tracking a driver that is being quit.
+     */
+    public static void detach(WebDriver driver) {
+        trackers.remove(driver);
+    }
+
+    /**
+     * The tracker attached to the driver, if any.
+     */
+    public static Optional<TransitionTracker> of(WebDriver driver) {
+        return Optional.ofNullable(trackers.get(driver));
+    }
+
+    /**
+     * Route change counter, to pass to awaitSettled.
+     */
+    public synchronized long mark() {
+        return routeChanges;
+    }
+
+    /**
+     * Block until the page is settled or the timeout passes. The quiet window counts from the later of
+     * the last network or route event and the call itself, so a request the step triggered but the
+     * browser has not reported yet is not missed. With expectRoute, the route must also have changed
+     * since the mark.
+     */
+    public synchronized Settled awaitSettled(long mark, boolean expectRoute, Duration timeout) {
+        long start = System.nanoTime();
+        long end = start + timeout.toNanos();
+        long quiet = FrameworkConfig.SETTLE_QUIET_MS * 1_000_000L;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                int pending = pending(now);
+                long idle = now - Math.max(lastActivity, start);
+                boolean routed = routeChanges != mark;
+                boolean settled = pending == 0 && idle >= quiet && (routed || !expectRoute);
+                if (settled || now >= end) {
+                    return new Settled(settled, (now - start) / 1_000_000, pending, routed, route);
+                }
+                long waitNanos = Math.min(end - now, pending == 0 && idle < quiet ? quiet - idle : quiet);
+                wait(Math.max(1, waitNanos / 1_000_000));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Settled(false, (System.nanoTime() - start) / 1_000_000, inFlight.size(), routeChanges != mark, route);
+        }
+    }
+
+    /**
+     * A request of the given CDP resource type was sent; only document, XHR/fetch and script requests count.
+     */
+    public synchronized void requestSent(String requestId, String type) {
+        if (!TRACKED_TYPES.contains(type)) return;
+        inFlight.putIfAbsent(requestId, System.nanoTime());
+        touch();
+    }
+
+    /**
+     * A request finished or failed.
+     */
+    public synchronized void requestDone(String requestId) {
+        if (inFlight.remove(requestId) != null) touch();
+    }
+
+    /**
+     * The main frame navigated or the route changed within the document.
+     */
+    public synchronized void routeChanged(String url) {
+        routeChanges++;
+        route = url;
+        FlightRecorder.record("route", url, routeChanges);
+        touch();
+    }
+
+    private int pending(long now) {
+        long stuck = FrameworkConfig.SETTLE_STUCK_MS * 1_000_000L;
+        int n = 0;
+        for (long sent : inFlight.values()) {
+            if (now - sent < stuck) n++;
+        }
+        return n;
+    }
+
+    private synchronized void forget() {
+        inFlight.clear();
+        touch();
+    }
+
+    private void touch() {
+        lastActivity = System.nanoTime();
+        notifyAll();
+    }
+
+    private void listen(WebDriver driver) {
+        Cdp.on(driver, "Network.requestWillBeSent", e -> requestSent((String) e.get("requestId"), String.valueOf(e.get("type"))));
+        Cdp.on(driver, "Network.loadingFinished", e -> requestDone((String) e.get("requestId")));
+        Cdp.on(driver, "Network.loadingFailed", e -> requestDone((String) e.get("requestId")));
+        Cdp.on(driver, "Page.frameNavigated", e -> {
+            if (e.get("frame") instanceof Map<?, ?> frame && frame.get("parentId") == null) {
+                routeChanged(String.valueOf(frame.get("url")));
+            }
+        });
+        Cdp.on(driver, "Page.navigatedWithinDocument", e -> routeChanged(String.valueOf(e.get("url"))));
+        logger.debug("Transition tracking on");
+    }
+}
@@ -1,58 +1,209 @@
 package com.harel.utils;
 
 import com.harel.config.FrameworkConfig;
+import com.harel.metrics.FlightRecorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.*;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
- * Explicit wait utilities wrapping WebDriverWait.
+ * Explicit wait utilities.
+ * In OBSERVER mode a wait is one async script that resolves from an in-page MutationObserver;
+ * POLLING mode (and any locator the page cannot resolve) uses WebDriverWait.
+ * Each wait computes its own timeout: the locator's learned timeout (LearnedTimeouts) or a fixed
+ * one, capped by the flow's Deadline, and gets its own WebDriverWait.
+ * Elements found visible or clickable are kept in an ElementCache. Only onVisible serves
+ * cached handles, since it recovers from stale or no longer usable ones; visible() always checks.
  */
 public class Waits {
+    private static final Logger logger = LogManager.getLogger(Waits.class);
+
+    /**
+     * How waits detect that their condition holds.
+     */
+    public enum Mode { POLLING, OBSERVER }
+
     private final WebDriver driver;
-    private final WebDriverWait wait;
+    private final Mode mode;
+    private final LearnedTimeouts learned;
+    private final Duration fixed;
+    private final ElementCache cache;
+    private volatile Deadline deadline = Deadline.none();
 
     /**
-     * Create a Waits helper using the explicit timeout from FrameworkConfig.
+     * Create a Waits helper using the learned timeouts and wait mode from FrameworkConfig.
      */
     public Waits(WebDriver driver) {
+        this(driver, Mode.valueOf(FrameworkConfig.WAIT_MODE.toUpperCase()));
+    }
+
+    /**
+     * Create a Waits helper with an explicit wait mode.
+     */
+    public Waits(WebDriver driver, Mode mode) {
+        this(driver, mode, LearnedTimeouts.shared(), null, new ElementCache(driver));
+    }
+
+    private Waits(WebDriver driver, Mode mode, LearnedTimeouts learned, Duration fixed, ElementCache cache) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC));
+        this.mode = mode;
+        this.learned = learned;
+        this.fixed = fixed;
+        this.cache = cache;
     }
 
     /**
-     * Wait until the element is clickable.
+     * Wait until the element is clickable. Always checked in the page, since enabled state
+     * can change without a navigation.
      */
     public WebElement clickable(By by) {
-        return wait.until(ExpectedConditions.elementToBeClickable(by));
+        long t0 = System.nanoTime();
+        Duration t = timeout(by);
+        Map<?, ?> res = observe(by, "clickable", t);
+        WebElement el = res != null ? (WebElement) res.get("el")
+                : poll(by, "clickable", t, ExpectedConditions.elementToBeClickable(by));
+        succeeded(by, t0);
+        cache.put(by, el);
+        return el;
     }
 
     /**
-     * Wait until the element is visible.
+     * Wait until the element is visible. Always checked in the page; the handle is cached for onVisible.
      */
     public WebElement visible(By by) {
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(by));
+        long t0 = System.nanoTime();
+        Duration t = timeout(by);
+        Map<?, ?> res = observe(by, "visible", t);
+        WebElement el = res != null ? (WebElement) res.get("el")
+                : poll(by, "visible", t, ExpectedConditions.visibilityOfElementLocated(by));
+        succeeded(by, t0);
+        cache.put(by, el);
+        return el;
     }
 
     /**
-     * Wait until the element becomes invisible.
+     * Apply the action to the visible element, using its cached handle from the current document
+     * when there is one. If that handle went stale or is no longer interactable (hidden without a
+     * navigation, or the navigation event has not arrived yet), wait for the element again and retry once.
+     */
+    public <T> T onVisible(By by, Function<WebElement, T> action) {
+        WebElement cached = cache.get(by);
+        if (cached == null) return action.apply(visible(by));
+        try {
+            return action.apply(cached);
+        } catch (StaleElementReferenceException | ElementNotInteractableException e) {
+            cache.evict(by);
+            return action.apply(visible(by));
+        }
+    }
+
+    /**
+     * Wait until the element becomes invisible. Not learned: how long a spinner stays says
+     * nothing about how long the element takes to appear.
      */
     public boolean invisible(By by) {
-        return wait.until(ExpectedConditions.invisibilityOfElementLocated(by));
+        Duration t = deadlineCapped(fixed != null ? fixed : Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC), by);
+        if (observe(by, "invisible", t) != null) return true;
+        return poll(by, "invisible", t, ExpectedConditions.invisibilityOfElementLocated(by));
+    }
+
+    /**
+     * Waits on the same driver and deadline with a fixed timeout instead of learned ones,
+     * e.g. Duration.ofSeconds(FrameworkConfig.SHORT_TIMEOUT_SEC) for optional elements.
+     */
+    public Waits withTimeout(Duration timeout) {
+        Waits w = new Waits(driver, mode, learned, timeout, cache);
+        w.deadline = deadline;
+        return w;
+    }
+
+    /**
+     * Cap every following wait by the given flow deadline.
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    public Deadline deadline() {
+        return deadline;
+    }
+
+    public ElementCache cache() {
+        return cache;
+    }
+
+    /**
+     * Timeout for a wait on the locator: learned or fixed, capped by the deadline.
+     * Throws TimeoutException right away when the deadline is already spent.
+     */
+    Duration timeout(By by) {
+        return deadlineCapped(fixed != null ? fixed : learned.timeoutFor(by), by);
     }
 
     /**
-     * Temporarily set a shorter timeout on the underlying WebDriverWait.
+     * Record a successful wait on the locator that started at t0 (System.nanoTime()).
      */
-    public void setShortTimeout() {
-        wait.withTimeout(Duration.ofSeconds(FrameworkConfig.SHORT_TIMEOUT_SEC));
+    void succeeded(By by, long t0) {
+        if (fixed == null) learned.record(by, System.nanoTime() - t0);
     }
 
     /**
-     * Restore the default explicit timeout.
+     * Timeout error for a wait that ran for the given time, saying when the deadline cut it short.
      */
-    public void setDefaultTimeout() {
-        wait.withTimeout(Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC));
+    TimeoutException timedOut(String condition, By by, Duration waited, Throwable cause) {
+        String msg = String.format("Expected condition failed: waiting for %s of %s (tried for %d ms%s)",
+                condition, by, waited.toMillis(), deadline.expired() ? ", flow deadline " + deadline.budget().toSeconds() + " s spent" : "");
+        return cause == null ? new TimeoutException(msg) : new TimeoutException(msg, cause);
+    }
+
+    private Duration deadlineCapped(Duration timeout, By by) {
+        if (deadline.expired()) {
+            FlightRecorder.record("wait.deadline", by, deadline.budget());
+            throw new TimeoutException("Flow deadline of " + deadline.budget().toSeconds() + " s spent before waiting for " + by);
+        }
+        return deadline.cap(timeout);
+    }
+
+    private <T> T poll(By by, String condition, Duration timeout, ExpectedCondition<T> cond) {
+        try {
+            return new WebDriverWait(driver, timeout).until(cond);
+        } catch (TimeoutException e) {
+            throw timedOut(condition, by, timeout, e);
+        }
+    }
+
+    /**
+     * Run the in-page observer wait. Returns null when the caller should fall back to polling.
+     */
+    private Map<?, ?> observe(By by, String condition, Duration timeout) {
+        if (mode != Mode.OBSERVER) return null;
+        String[] remote = DomScripts.remote(by);
+        if (remote == null) return null;
+
+        Object res;
+        try {
+            res = ((JavascriptExecutor) driver).executeAsyncScript(
+                    DomScripts.AWAIT_CONDITION, remote[0], remote[1], condition, timeout.toMillis());
+        } catch (ScriptTimeoutException e) {
+            throw timedOut(condition, by, timeout, e);
+        } catch (JavascriptException | UnsupportedCommandException e) {
+            FlightRecorder.record("wait.polling", by, e.getClass().getSimpleName());
+            logger.debug("Observer wait unavailable for {}, polling instead. {}", by, e.toString());
+            return null;
+        }
+
+        if (res == null) throw timedOut(condition, by, timeout, null);
+        Map<?, ?> map = (Map<?, ?>) res;
+        if (map.containsKey("error")) {
+            FlightRecorder.record("wait.polling", by, map.get("error"));
+            logger.debug("Observer wait failed for {}, polling instead. {}", by, map.get("error"));
+            return null;
+        }
+        return map;
     }
 }
@@ -0,0 +1,59 @@
+package com.harel.visual;
+
+/**
+ * 64-bit difference hash (dHash) of an image region: the region is box-averaged down to 9×8
+ * luminance cells and each bit says whether a cell is clearly brighter than its right neighbour.
+ * Small rendering noise (anti-aliasing, compression) moves few bits; moved or missing content
+ * moves many. Pixels are packed ARGB ints, row-major, as from BufferedImage.getRGB.
+ */
+public final class PerceptualHash {
+
+    private static final int COLS = 9;
+    private static final int ROWS = 8;
+    /** Minimum luma step for a bit to be set, so flat regions hash to stable zeros instead of noise. */
+    private static final double FLAT = 2.0;
+
+    private PerceptualHash() {}
+
+    /**
+     * dHash of the w×h region at (x, y) of an image that is stride pixels wide.
+     */
+    public static long dHash(int[] pixels, int stride, int x, int y, int w, int h) {
+        double[] cells = new double[COLS * ROWS];
+        for (int r = 0; r < ROWS; r++) {
+            int y0 = y + r * h / ROWS, y1 = Math.max(y0 + 1, y + (r + 1) * h / ROWS);
+            for (int c = 0; c < COLS; c++) {
+                int x0 = x + c * w / COLS, x1 = Math.max(x0 + 1, x + (c + 1) * w / COLS);
+                long sum = 0;
+                for (int py = y0; py < y1; py++) {
+                    int row = py * stride;
+                    for (int px = x0; px < x1; px++) sum += luma(pixels[row + px]);
+                }
+                cells[r * COLS + c] = (double) sum / ((long) (y1 - y0) * (x1 - x0));
+            }
+        }
+        long hash = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS - 1; c++) {
+                hash <<= 1;
+                if (cells[r * COLS + c] - cells[r * COLS + c + 1] > FLAT) hash |= 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Number of differing bits, 0 (same) to 64.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * Integer luma (ITU-R BT.601 weights) of an ARGB pixel, 0–255.
+     */
+    static int luma(int argb) {
+        int r = (argb >> 16) & 0xff, g = (argb >> 8) & 0xff, b = argb & 0xff;
+        return (r * 299 + g * 587 + b * 114) / 1000;
+    }
+}
@@ -0,0 +1,233 @@
+package com.harel.visual;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Visual regression check on screenshots, tile by tile.
+ * The screenshot is cut into square tiles whose perceptual hashes are computed in parallel and
+ * compared with the stored baseline; only tiles whose hash moved get a pixel comparison, and only
+ * tiles whose pixels really changed count as regressions (drawn into a diff image).
+ * Baselines are versioned under VISUAL_BASELINE_DIR and only written with -Dvisual.baseline.update=true;
+ * a missing baseline or one of another size fails the check, with the screenshot saved next to the diffs.
+ */
+public final class VisualCheck {
+
+    private static final Logger logger = LogManager.getLogger(VisualCheck.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** A pixel counts as changed when a colour channel moved by more than this. */
+    private static final int PIXEL_TOLERANCE = 32;
+
+    private static final VisualCheck shared =
+            new VisualCheck(Path.of(FrameworkConfig.VISUAL_BASELINE_DIR), Path.of(FrameworkConfig.VISUAL_DIFF_DIR),
+                    FrameworkConfig.VISUAL_BASELINE_UPDATE);
+
+    /**
+     * Stored tile hashes (hex) for one screenshot; the screenshot itself is kept next to it as PNG.
+     */
+    public record Baseline(int width, int height, int tile, List<String> hashes) {}
+
+    /**
+     * A tile whose hash moved: hash distance in bits and share of its pixels that changed.
+     */
+    public record TileDiff(int col, int row, int distance, double changedPct) {}
+
+    /**
+     * Outcome for one screenshot. regressed is the subset of changed tiles over the pixel threshold;
+     * mismatch says why no comparison was possible (no baseline, other size), else null.
+     */
+    public record Result(String name, int tiles, List<TileDiff> changed, List<TileDiff> regressed,
+                         boolean baselineWritten, String mismatch, long millis) {
+        public boolean passed() {
+            return regressed.isEmpty() && mismatch == null;
+        }
+    }
+
+    private record Loaded(Baseline baseline, long[] hashes, int[] pixels) {}
+
+    private final Path baselineDir;
+    private final Path diffDir;
+    private final boolean update;
+    private final Map<String, Loaded> baselines = new ConcurrentHashMap<>();
+
+    /**
+     * Check against baselines in baselineDir; with update, every check stores its screenshot as the baseline.
+     */
+    public VisualCheck(Path baselineDir, Path diffDir, boolean update) {
+        this.baselineDir = baselineDir;
+        this.diffDir = diffDir;
+        this.update = update;
+    }
+
+    public static VisualCheck shared() {
+        return shared;
+    }
+
+    /**
+     * Check the driver's current viewport against the baseline stored under name.
+     */
+    public Result check(WebDriver driver, String name) {
+        byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        try {
+            return check(name, ImageIO.read(new ByteArrayInputStream(png)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode screenshot for " + name, e);
+        }
+    }
+
+    /**
+     * Check an image against the baseline stored under name.
+     */
+    public Result check(String name, BufferedImage image) {
+        long t0 = System.nanoTime();
+        int w = image.getWidth(), h = image.getHeight(), tile = FrameworkConfig.VISUAL_TILE_PX;
+        int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+        long[] hashes = hashTiles(pixels, w, h, tile);
+        int cols = (w + tile - 1) / tile;
+
+        if (update) {
+            store(name, image, pixels, hashes, tile);
+            return new Result(name, hashes.length, List.of(), List.of(), true, null, millisSince(t0));
+        }
+        Loaded base = baseline(name);
+        String mismatch = null;
+        if (base == null) {
+            mismatch = "no baseline in " + baselineDir;
+        } else if (base.baseline().width() != w || base.baseline().height() != h || base.baseline().tile() != tile) {
+            mismatch = String.format("baseline is %dx%d (tile %d), screenshot is %dx%d (tile %d)",
+                    base.baseline().width(), base.baseline().height(), base.baseline().tile(), w, h, tile);
+        }
+        if (mismatch != null) {
+            Path actual = writeImage(name + "-actual", image);
+            logger.warn("Visual check {} not compared: {}; screenshot saved to {}, "
+                    + "store it as baseline with -Dvisual.baseline.update=true", name, mismatch, actual);
+            return new Result(name, hashes.length, List.of(), List.of(), false, mismatch, millisSince(t0));
+        }
+
+        Loaded b = base;
+        List<TileDiff> changed = IntStream.range(0, hashes.length).parallel()
+                .filter(i -> PerceptualHash.distance(hashes[i], b.hashes()[i]) > FrameworkConfig.VISUAL_HASH_DISTANCE)
+                .mapToObj(i -> {
+                    int col = i % cols, row = i / cols;
+                    double pct = changedPct(b.pixels(), pixels, w, h, col * tile, row * tile, tile);
+                    return new TileDiff(col, row, PerceptualHash.distance(hashes[i], b.hashes()[i]), pct);
+                })
+                .toList();
+        List<TileDiff> regressed = changed.stream().filter(d -> d.changedPct() > FrameworkConfig.VISUAL_PIXEL_PCT).toList();
+        if (!regressed.isEmpty()) writeDiff(name, image, regressed, tile);
+        return new Result(name, hashes.length, changed, regressed, false, null, millisSince(t0));
+    }
+
+    /**
+     * dHash of every tile, row-major; edge tiles are cut to the image.
+     */
+    public static long[] hashTiles(int[] pixels, int w, int h, int tile) {
+        int cols = (w + tile - 1) / tile, rows = (h + tile - 1) / tile;
+        return IntStream.range(0, cols * rows).parallel().mapToLong(i -> {
+            int x = (i % cols) * tile, y = (i / cols) * tile;
+            return PerceptualHash.dHash(pixels, w, x, y, Math.min(tile, w - x), Math.min(tile, h - y));
+        }).toArray();
+    }
+
+    private static double changedPct(int[] before, int[] after, int w, int h, int x, int y, int tile) {
+        int x1 = Math.min(w, x + tile), y1 = Math.min(h, y + tile), changed = 0;
+        for (int py = y; py < y1; py++) {
+            for (int px = x; px < x1; px++) {
+                int a = before[py * w + px], b = after[py * w + px];
+                if (Math.abs(((a >> 16) & 0xff) - ((b >> 16) & 0xff)) > PIXEL_TOLERANCE
+                        || Math.abs(((a >> 8) & 0xff) - ((b >> 8) & 0xff)) > PIXEL_TOLERANCE
+                        || Math.abs((a & 0xff) - (b & 0xff)) > PIXEL_TOLERANCE) {
+                    changed++;
+                }
+            }
+        }
+        return 100.0 * changed / ((x1 - x) * (y1 - y));
+    }
+
+    private Loaded baseline(String name) {
+        Loaded cached = baselines.get(name);
+        if (cached != null) return cached;
+        Path json = baselineDir.resolve(name + ".json"), png = baselineDir.resolve(name + ".png");
+        if (!Files.exists(json) || !Files.exists(png)) return null;
+        try {
+            Baseline b = MAPPER.readValue(json.toFile(), Baseline.class);
+            BufferedImage img = ImageIO.read(png.toFile());
+            long[] hashes = b.hashes().stream().mapToLong(s -> Long.parseUnsignedLong(s, 16)).toArray();
+            Loaded loaded = new Loaded(b, hashes, img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth()));
+            baselines.putIfAbsent(name, loaded);
+            return baselines.get(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read visual baseline " + json, e);
+        }
+    }
+
+    /**
+     * Store once per name and run, so parallel checks of the same step do not overwrite each other.
+     */
+    private synchronized void store(String name, BufferedImage image, int[] pixels, long[] hashes, int tile) {
+        if (baselines.containsKey(name)) return;
+        Baseline b = new Baseline(image.getWidth(), image.getHeight(), tile,
+                Arrays.stream(hashes).mapToObj(Long::toHexString).toList());
+        try {
+            Files.createDirectories(baselineDir);
+            MAPPER.writeValue(baselineDir.resolve(name + ".json").toFile(), b);
+            ImageIO.write(image, "png", baselineDir.resolve(name + ".png").toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write visual baseline " + name, e);
+        }
+        baselines.put(name, new Loaded(b, hashes, pixels));
+        logger.info("Visual baseline {} written to {} ({} tile(s))", name, baselineDir, hashes.length);
+    }
+
+    private void writeDiff(String name, BufferedImage image, List<TileDiff> regressed, int tile) {
+        BufferedImage out = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+            g.setColor(Color.RED);
+            g.setStroke(new BasicStroke(3));
+            for (TileDiff d : regressed) g.drawRect(d.col() * tile, d.row() * tile, tile - 1, tile - 1);
+        } finally {
+            g.dispose();
+        }
+        writeImage(name, out);
+    }
+
+    private Path writeImage(String name, BufferedImage image) {
+        Path file = diffDir.resolve(name + "-" + System.currentTimeMillis() + "-" + Thread.currentThread().threadId() + ".png");
+        try {
+            Files.createDirectories(diffDir);
+            ImageIO.write(image, "png", file.toFile());
+            logger.debug("Visual output for {} written to {}", name, file);
+        } catch (IOException e) {
+            logger.warn("Could not write visual output {}: {}", file, e.toString());
+        }
+        return file;
+    }
+
+    private static long millisSince(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+}
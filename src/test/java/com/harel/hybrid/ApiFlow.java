@@ -0,0 +1,172 @@
+package com.harel.hybrid;
+
+import com.harel.actions.FunnelStep;
+import com.harel.checkpoint.CheckpointStore;
+import com.harel.checkpoint.Checkpoints;
+import com.harel.checkpoint.FlowCheckpoint;
+import com.harel.replay.TrafficArchive;
+import io.restassured.RestAssured;
+import io.restassured.config.EncoderConfig;
+import io.restassured.config.RedirectConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.Cookie;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs the funnel's backend calls directly over HTTP, then hands the resulting session to a browser.
+ * There is no documented quote API, so the calls are the XHR/Fetch (and document) requests that
+ * a recorded TrafficArchive attributes to each step, sent in recorded order with the browser's
+ * request content type and one cookie jar, of which each call only gets its own host's cookies.
+ * The browser gets those cookies plus the URL and web storage of the saved checkpoint for the
+ * step, so only the step under test has to run through Selenium.
+ */
+public final class ApiFlow {
+
+    private static final Logger logger = LogManager.getLogger(ApiFlow.class);
+
+    private static final Set<String> API_TYPES = Set.of("XHR", "Fetch", "Document");
+    private static final Set<String> REPLAYED_HEADERS = Set.of("content-type", "accept");
+    private static final RestAssuredConfig REPLAY = RestAssuredConfig.config()
+            .redirect(RedirectConfig.redirectConfig().followRedirects(false))
+            .encoderConfig(EncoderConfig.encoderConfig().appendDefaultContentCharsetToContentTypeIfUndefined(false));
+
+    private final TrafficArchive archive;
+    private final UnaryOperator<String> toTarget;
+    private final CheckpointStore checkpoints;
+    /** Cookies set by API responses, keyed by domain and name. */
+    private final Map<String, ApiCookie> cookies = new LinkedHashMap<>();
+    private int calls;
+
+    /** A cookie set by an API response, with the recorded host it belongs to. */
+    private record ApiCookie(Cookie cookie, String domain) {}
+
+    /**
+     * @param toTarget maps a recorded URL to the URL to call (identity for live, ReplayServer::localUrl for replay)
+     */
+    public ApiFlow(TrafficArchive archive, UnaryOperator<String> toTarget, CheckpointStore checkpoints) {
+        this.archive = archive;
+        this.toTarget = toTarget;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Send the recorded calls of every step up to and including the given one.
+     */
+    public ApiFlow advanceTo(FunnelStep last) {
+        long t0 = System.nanoTime();
+        for (TrafficArchive.Exchange e : callsUpTo(last)) {
+            String url = toTarget.apply(e.url());
+            String recordedHost = URI.create(e.url()).getHost();
+            RequestSpecification req = RestAssured.given().config(REPLAY).cookies(cookieValues(recordedHost));
+            if (e.requestHeaders() != null) {
+                e.requestHeaders().forEach((k, v) -> {
+                    if (REPLAYED_HEADERS.contains(k.toLowerCase())) req.header(k, v);
+                });
+            }
+            if (e.requestBody() != null) req.body(e.requestBody());
+            Response res = req.request(e.method(), url);
+            calls++;
+            res.getDetailedCookies().asList().forEach(c -> {
+                String domain = c.getDomain() != null ? c.getDomain() : recordedHost;
+                cookies.put(domain + "|" + c.getName(), new ApiCookie(c, domain));
+            });
+            if (res.statusCode() / 100 != e.status() / 100) {
+                throw new IllegalStateException(String.format("API call for step %s failed: %s %s -> %d (recorded %d)",
+                        e.step(), e.method(), url, res.statusCode(), e.status()));
+            }
+        }
+        logger.info("API flow reached {} with {} call(s) in {} ms", last, calls, (System.nanoTime() - t0) / 1_000_000);
+        return this;
+    }
+
+    /**
+     * Open the step's checkpoint in the browser, carrying this flow's cookies instead of the recorded ones.
+     */
+    public void inject(WebDriver driver, FunnelStep step) {
+        Checkpoints.restore(driver, checkpointFor(step));
+    }
+
+    /**
+     * The step's saved checkpoint on the target URL, with this flow's cookies merged over the saved ones.
+     * Only cookies of the checkpoint page's own site are kept (third-party ones cannot be set for
+     * another host), re-homed on the target host.
+     */
+    public FlowCheckpoint checkpointFor(FunnelStep step) {
+        FlowCheckpoint saved = checkpoints.get(step.name()).orElseThrow(() -> new IllegalStateException(
+                "No checkpoint for " + step + "; run the UI flow once with checkpoints enabled"));
+        String recordedHost = URI.create(saved.url()).getHost();
+        String url = toTarget.apply(saved.url());
+        String host = URI.create(url).getHost();
+
+        Map<String, FlowCheckpoint.CookieData> merged = new LinkedHashMap<>();
+        saved.cookies().stream()
+                .filter(c -> c.domain() == null || domainMatches(c.domain(), recordedHost))
+                .forEach(c -> merged.put(c.name(), c));
+        cookies.values().stream()
+                .filter(a -> domainMatches(a.domain(), recordedHost))
+                .map(ApiCookie::cookie)
+                .forEach(c -> merged.put(c.getName(), new FlowCheckpoint.CookieData(
+                        c.getName(), c.getValue(), null, c.getPath() != null ? c.getPath() : "/",
+                        c.getExpiryDate() == null ? null : c.getExpiryDate().getTime(),
+                        c.isSecured(), c.isHttpOnly(), c.getSameSite())));
+        List<FlowCheckpoint.CookieData> rehomed = merged.values().stream()
+                .map(c -> new FlowCheckpoint.CookieData(c.name(), c.value(), host, c.path(), c.expiryMillis(),
+                        c.secure() && url.startsWith("https"), c.httpOnly(), c.sameSite()))
+                .toList();
+        return new FlowCheckpoint(step.name() + "-api", url, rehomed,
+                saved.localStorage(), saved.sessionStorage(), System.currentTimeMillis());
+    }
+
+    /**
+     * Number of HTTP calls sent so far.
+     */
+    public int calls() {
+        return calls;
+    }
+
+    List<TrafficArchive.Exchange> callsUpTo(FunnelStep last) {
+        List<TrafficArchive.Exchange> out = new ArrayList<>();
+        for (TrafficArchive.Exchange e : archive.entries()) {
+            if (e.step() == null || !API_TYPES.contains(e.resourceType())) continue;
+            FunnelStep s;
+            try {
+                s = FunnelStep.valueOf(e.step());
+            } catch (IllegalArgumentException ex) {
+                continue;
+            }
+            if (s.ordinal() <= last.ordinal()) out.add(e);
+        }
+        return out;
+    }
+
+    /**
+     * Values of the jar's cookies that belong to the given recorded host.
+     */
+    private Map<String, String> cookieValues(String recordedHost) {
+        Map<String, String> m = new LinkedHashMap<>();
+        cookies.values().forEach(c -> {
+            if (domainMatches(c.domain(), recordedHost)) m.put(c.cookie().getName(), c.cookie().getValue());
+        });
+        return m;
+    }
+
+    /**
+     * Cookie domain match (RFC 6265 5.1.3), ignoring a leading dot.
+     */
+    static boolean domainMatches(String domain, String host) {
+        String d = domain.startsWith(".") ? domain.substring(1) : domain;
+        return host.equalsIgnoreCase(d) || host.toLowerCase().endsWith("." + d.toLowerCase());
+    }
+}
@@ -0,0 +1,155 @@
+package com.harel.listeners;
+
+import com.harel.config.FrameworkConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background encoder/writer for failure artifacts, so test threads only pay for the capture itself.
+ */
+final class ArtifactWriter {
+
+    private static final Logger logger = LogManager.getLogger(ArtifactWriter.class);
+
+    private static final ArtifactWriter shared = new ArtifactWriter(FrameworkConfig.ARTIFACT_THREADS);
+
+    private final ExecutorService executor;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private ArtifactWriter(int threads) {
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory tf = r -> {
+            Thread t = new Thread(r, "artifact-writer-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        };
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), tf);
+    }
+
+    static ArtifactWriter shared() {
+        return shared;
+    }
+
+    /**
+     * Run a write task in the background; failures are logged, never thrown to the test.
+     */
+    void submit(String what, IoTask task) {
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not write {}: {}", what, e.toString());
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Wait until every submitted write has finished, or the timeout passes.
+     */
+    void drain(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (pending.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (pending.get() > 0) logger.warn("{} artifact write(s) still pending after {} ms", pending.get(), timeoutMs);
+    }
+
+    @FunctionalInterface
+    interface IoTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Whether the screenshot can be re-encoded as JPEG: a reader recognises it and a JPEG writer exists.
+     * Only the image header is read, so this is cheap enough for the test thread.
+     */
+    static boolean jpegCapable(byte[] image) {
+        if (!ImageIO.getImageWritersByFormatName("jpg").hasNext()) return false;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return false;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return reader.getWidth(0) > 0 && reader.getHeight(0) > 0;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Re-encode a screenshot that passed jpegCapable as JPEG.
+     */
+    static byte[] screenshotJpeg(byte[] png, float quality) {
+        try {
+            BufferedImage src = ImageIO.read(new ByteArrayInputStream(png));
+            if (src == null) throw new IOException("Screenshot could not be decoded");
+            BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.getGraphics().drawImage(src, 0, 0, null);
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(png.length / 3);
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(rgb, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] gzip(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, text.length() / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static void write(Path file, byte[] bytes) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+}
@@ -0,0 +1,123 @@
+package com.harel.listeners;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.DriverPool;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Captures a screenshot, the DOM and the browser console of a failed test right after the
+ * test method returns, before @AfterMethod hands the driver back to the pool.
+ * Only the raw capture and a header check of the screenshot run on the test thread (a screenshot
+ * that cannot be re-encoded is kept as PNG); JPEG/gzip encoding and the writes to
+ * ARTIFACT_DIR and the Allure results happen on ArtifactWriter's threads.
+ * The written paths are stored on the result under ARTIFACTS for other reporters.
+ */
+public class FailureArtifactListener implements IInvokedMethodListener {
+
+    /** ITestResult attribute: artifact name → file, for reporters that link to them. */
+    public static final String ARTIFACTS = "failure.artifacts";
+
+    private static final Logger logger = LogManager.getLogger(FailureArtifactListener.class);
+
+    private record Snapshot(String url, String screenshot, String dom, List<LogEntry> console) {}
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod() || result.getStatus() != ITestResult.FAILURE) return;
+        DriverPool.get().currentIfBound().ifPresent(driver -> save(result, capture(driver)));
+    }
+
+    private static Snapshot capture(WebDriver driver) {
+        String url = null, screenshot = null, dom = null;
+        List<LogEntry> console = List.of();
+        try {
+            url = driver.getCurrentUrl();
+            screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+        } catch (WebDriverException e) {
+            logger.debug("No screenshot: {}", e.toString());
+        }
+        try {
+            dom = driver.getPageSource();
+        } catch (WebDriverException e) {
+            logger.debug("No DOM: {}", e.toString());
+        }
+        try {
+            console = driver.manage().logs().get(LogType.BROWSER).getAll();
+        } catch (WebDriverException e) {
+            logger.debug("No browser log: {}", e.toString());
+        }
+        return new Snapshot(url, screenshot, dom, console);
+    }
+
+    private static void save(ITestResult result, Snapshot s) {
+        String test = result.getTestClass().getRealClass().getSimpleName() + "." + result.getMethod().getMethodName();
+        Path dir = Path.of(FrameworkConfig.ARTIFACT_DIR, test + "-" + System.currentTimeMillis());
+        AllureLifecycle allure = Allure.getLifecycle();
+        boolean inAllure = allure.getCurrentTestCaseOrStep().isPresent();
+        Map<String, Path> files = new LinkedHashMap<>();
+        ArtifactWriter writer = ArtifactWriter.shared();
+
+        if (s.screenshot() != null) {
+            byte[] png = Base64.getMimeDecoder().decode(s.screenshot());
+            // The format is fixed here, since the file name and the Allure type are declared now.
+            boolean jpeg = ArtifactWriter.jpegCapable(png);
+            Path file = dir.resolve(jpeg ? "screenshot.jpg" : "screenshot.png");
+            String source = inAllure
+                    ? allure.prepareAttachment("Screenshot", jpeg ? "image/jpeg" : "image/png", jpeg ? ".jpg" : ".png")
+                    : null;
+            files.put("screenshot", file);
+            writer.submit(file.toString(), () -> {
+                byte[] image = jpeg ? ArtifactWriter.screenshotJpeg(png, 0.8f) : png;
+                ArtifactWriter.write(file, image);
+                if (source != null) allure.writeAttachment(source, new ByteArrayInputStream(image));
+            });
+        }
+        if (s.dom() != null) {
+            Path file = dir.resolve("dom.html.gz");
+            String source = inAllure ? allure.prepareAttachment("DOM", "application/gzip", ".html.gz") : null;
+            files.put("dom", file);
+            String page = "<!-- " + s.url() + " -->\n" + s.dom();
+            writer.submit(file.toString(), () -> {
+                byte[] gz = ArtifactWriter.gzip(page);
+                ArtifactWriter.write(file, gz);
+                if (source != null) allure.writeAttachment(source, new ByteArrayInputStream(gz));
+            });
+        }
+        if (!s.console().isEmpty()) {
+            Path file = dir.resolve("console.log.gz");
+            String source = inAllure ? allure.prepareAttachment("Browser console", "application/gzip", ".log.gz") : null;
+            files.put("console", file);
+            writer.submit(file.toString(), () -> {
+                String text = s.console().stream()
+                        .map(e -> Instant.ofEpochMilli(e.getTimestamp()) + " " + e.getLevel() + " " + e.getMessage())
+                        .collect(Collectors.joining("\n"));
+                byte[] gz = ArtifactWriter.gzip(text);
+                ArtifactWriter.write(file, gz);
+                if (source != null) allure.writeAttachment(source, new ByteArrayInputStream(gz));
+            });
+        }
+        result.setAttribute(ARTIFACTS, files);
+        logger.info("Failure artifacts for {} queued under {}", test, dir);
+    }
+}
@@ -0,0 +1,55 @@
+package com.harel.listeners;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.metrics.FlightRecorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Starts each test with an empty flight recorder buffer and dumps the buffer of the
+ * test's thread to FLIGHT_DIR when the test fails (or after every test with flight.dump=always).
+ */
+public class FlightRecorderListener implements ITestListener {
+
+    private static final Logger logger = LogManager.getLogger(FlightRecorderListener.class);
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        FlightRecorder.clear();
+        FlightRecorder.record("test", name(result), "start");
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        if ("always".equalsIgnoreCase(FrameworkConfig.FLIGHT_DUMP)) dump(result, "passed");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        if (!"never".equalsIgnoreCase(FrameworkConfig.FLIGHT_DUMP)) dump(result, "failed");
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        onTestFailure(result);
+    }
+
+    private static void dump(ITestResult result, String status) {
+        FlightRecorder.record("test", name(result), status);
+        Path file = Path.of(FrameworkConfig.FLIGHT_DIR, name(result) + "-" + result.getEndMillis() + ".ndjson");
+        try {
+            if (FlightRecorder.dump(file)) logger.info("Flight recording for {} ({}): {}", name(result), status, file);
+        } catch (IOException e) {
+            logger.warn("Could not write flight recording {}: {}", file, e.toString());
+        }
+    }
+
+    private static String name(ITestResult result) {
+        return result.getTestClass().getRealClass().getSimpleName() + "." + result.getMethod().getMethodName();
+    }
+}
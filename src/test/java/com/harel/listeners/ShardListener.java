@@ -0,0 +1,110 @@
+package com.harel.listeners;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.shard.DurationHistory;
+import com.harel.shard.ShardPlanner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps only this JVM's shard of the suite (SHARD_INDEX of SHARD_COUNT) and records how long
+ * each test took, so the next plan is based on fresh durations.
+ * Methods linked by dependsOnMethods are planned as one unit and always land in the same shard.
+ */
+public class ShardListener implements IMethodInterceptor, ITestListener, ISuiteListener {
+
+    private static final Logger logger = LogManager.getLogger(ShardListener.class);
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (FrameworkConfig.SHARD_COUNT <= 1) return methods;
+        if (FrameworkConfig.SHARD_INDEX < 0 || FrameworkConfig.SHARD_INDEX >= FrameworkConfig.SHARD_COUNT) {
+            throw new IllegalArgumentException("shard.index must be in 0.." + (FrameworkConfig.SHARD_COUNT - 1)
+                    + ", was " + FrameworkConfig.SHARD_INDEX);
+        }
+
+        Map<String, String> unitOf = new HashMap<>();
+        for (IMethodInstance m : methods) unitOf.put(id(m.getMethod()), id(m.getMethod()));
+        for (IMethodInstance m : methods) {
+            for (String dep : m.getMethod().getMethodsDependedUpon()) {
+                if (unitOf.containsKey(dep)) union(unitOf, id(m.getMethod()), dep);
+            }
+        }
+        Map<String, List<String>> units = new TreeMap<>();
+        for (IMethodInstance m : methods) {
+            units.computeIfAbsent(find(unitOf, id(m.getMethod())), k -> new ArrayList<>()).add(id(m.getMethod()));
+        }
+        List<ShardPlanner.Unit> planned = new ArrayList<>();
+        units.forEach((root, tests) -> planned.add(new ShardPlanner.Unit(root, tests)));
+
+        List<ShardPlanner.Shard> shards = new ShardPlanner(DurationHistory.shared().durations())
+                .plan(planned, FrameworkConfig.SHARD_COUNT);
+        ShardPlanner.Shard mine = shards.get(FrameworkConfig.SHARD_INDEX);
+        Set<String> keep = new HashSet<>();
+        mine.units().forEach(u -> keep.addAll(u.tests()));
+
+        List<IMethodInstance> out = new ArrayList<>();
+        for (IMethodInstance m : methods) {
+            if (keep.contains(id(m.getMethod()))) out.add(m);
+        }
+        Map<Integer, Long> estimates = new LinkedHashMap<>();
+        shards.forEach(s -> estimates.put(s.index(), s.estimatedMillis() / 1000));
+        logger.info("Shard {}/{}: {} of {} test(s); estimated seconds per shard {}",
+                FrameworkConfig.SHARD_INDEX + 1, FrameworkConfig.SHARD_COUNT, out.size(), methods.size(), estimates);
+        return out;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        DurationHistory.shared().save();
+    }
+
+    private static void record(ITestResult result) {
+        DurationHistory.shared().record(id(result.getMethod()), result.getEndMillis() - result.getStartMillis());
+    }
+
+    /**
+     * "com.harel.tests.Foo.bar": qualified like TestNG's dependsOnMethods entries, so equally named
+     * classes in different packages keep their own history and shard assignment.
+     */
+    private static String id(ITestNGMethod m) {
+        return m.getRealClass().getName() + "." + m.getMethodName();
+    }
+
+    private static String find(Map<String, String> parent, String x) {
+        String p = parent.get(x);
+        return p.equals(x) ? x : find(parent, p);
+    }
+
+    private static void union(Map<String, String> parent, String a, String b) {
+        String ra = find(parent, a), rb = find(parent, b);
+        if (!ra.equals(rb)) parent.put(ra.compareTo(rb) < 0 ? rb : ra, ra.compareTo(rb) < 0 ? ra : rb);
+    }
+}
@@ -0,0 +1,92 @@
+package com.harel.listeners;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.report.ReportMerger;
+import com.harel.report.ResultSink;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streams one result event per test method to ResultSink, with links to the failure artifacts
+ * written by FailureArtifactListener. Steps run by the test are tagged with its name.
+ * The Extent report is built from the results by ReportMerger in its own JVM after the run, so
+ * the test JVM never holds the whole report; with REPORT_IN_JVM an unsharded suite builds it itself.
+ */
+public class StreamingResultListener implements ITestListener, ISuiteListener {
+
+    private static final Logger logger = LogManager.getLogger(StreamingResultListener.class);
+
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        ResultSink.enterTest(name(result));
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        emit(result, "PASSED");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        emit(result, "SKIPPED");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        emit(result, "FAILED");
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        ArtifactWriter.shared().drain(DRAIN_TIMEOUT_MS);
+        ResultSink sink = ResultSink.shared();
+        if (sink == null) return;
+        sink.flush(DRAIN_TIMEOUT_MS);
+        if (!FrameworkConfig.REPORT_IN_JVM || FrameworkConfig.SHARD_COUNT > 1) {
+            logger.info("Results in {}; build the report with "
+                    + "mvn -q exec:java -Dexec.mainClass=com.harel.report.ReportMerger", sink.file().getParent());
+            return;
+        }
+        try {
+            ReportMerger.build(sink.file().getParent(), Path.of(FrameworkConfig.EXTENT_REPORT), null);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not build the Extent report from {}: {}", sink.file(), e.toString());
+        }
+    }
+
+    private static void emit(ITestResult result, String status) {
+        ResultSink.enterTest(null);
+        ResultSink sink = ResultSink.shared();
+        if (sink == null) return;
+        Map<String, String> attachments = new LinkedHashMap<>();
+        if (result.getAttribute(FailureArtifactListener.ARTIFACTS) instanceof Map<?, ?> files) {
+            files.forEach((k, v) -> attachments.put(String.valueOf(k), ((Path) v).toAbsolutePath().toString()));
+        }
+        sink.test(name(result), status, result.getStartMillis(), result.getEndMillis() - result.getStartMillis(),
+                stackTrace(result.getThrowable()), attachments);
+    }
+
+    private static String name(ITestResult result) {
+        return result.getTestClass().getRealClass().getSimpleName() + "." + result.getMethod().getMethodName();
+    }
+
+    private static String stackTrace(Throwable t) {
+        if (t == null) return null;
+        StringWriter out = new StringWriter();
+        t.printStackTrace(new PrintWriter(out));
+        return out.toString();
+    }
+}
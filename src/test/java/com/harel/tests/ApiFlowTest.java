@@ -0,0 +1,137 @@
+package com.harel.tests;
+
+import com.harel.actions.FunnelStep;
+import com.harel.checkpoint.CheckpointStore;
+import com.harel.checkpoint.FlowCheckpoint;
+import com.harel.hybrid.ApiFlow;
+import com.harel.replay.ReplayServer;
+import com.harel.replay.TrafficArchive;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * ApiFlow against a synthetic archive served by ReplayServer; no browser involved.
+ */
+public class ApiFlowTest {
+
+    private static final String SITE = "https://travel.example.com";
+
+    private ReplayServer server;
+    private TrafficArchive archive;
+
+    @BeforeClass
+    public void start() throws IOException {
+        archive = new TrafficArchive(SITE + "/policy", 0, List.of(
+                exchange("LANDING", "Document", "GET", SITE + "/policy", 200, "sid=s1; Path=/"),
+                exchange("LANDING", "Script", "GET", SITE + "/app.js", 200, null),
+                exchange("DESTINATION", "XHR", "POST", SITE + "/api/quote", 200, "quote=q1; Path=/"),
+                exchange("DATES_FILLED", "Fetch", "GET", "https://tracker.example.net/collect", 200, "track=t1; Path=/"),
+                exchange("PASSENGERS", "XHR", "POST", SITE + "/api/passengers", 500, null)));
+        server = new ReplayServer(archive, freePort(), 0, 0);
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stop() {
+        if (server != null) server.stop();
+    }
+
+    @Test
+    public void sendsRecordedCallsUpToStep() {
+        ApiFlow api = new ApiFlow(archive, server::localUrl, new CheckpointStore(null)).advanceTo(FunnelStep.DATES_FILLED);
+        Assert.assertEquals(api.calls(), 3, "document, XHR and fetch calls; scripts and later steps skipped");
+    }
+
+    @Test
+    public void mergesOnlyFirstPartyCookiesOntoTarget() {
+        CheckpointStore store = new CheckpointStore(null);
+        store.put(new FlowCheckpoint(FunnelStep.DATES_FILLED.name(), SITE + "/policy?step=dates", List.of(
+                cookie("sid", "recorded", ".example.com"),
+                cookie("lang", "he", "travel.example.com"),
+                cookie("_ga", "GA1", ".tracker.example.net")),
+                Map.of("quoteDraft", "{}"), Map.of(), 0));
+
+        ApiFlow api = new ApiFlow(archive, server::localUrl, store).advanceTo(FunnelStep.DATES_FILLED);
+        FlowCheckpoint cp = api.checkpointFor(FunnelStep.DATES_FILLED);
+
+        Assert.assertEquals(cp.url(), server.origin() + "/policy?step=dates");
+        Map<String, String> cookies = cp.cookies().stream()
+                .collect(Collectors.toMap(FlowCheckpoint.CookieData::name, FlowCheckpoint.CookieData::value));
+        Assert.assertEquals(cookies, Map.of("sid", "s1", "lang", "he", "quote", "q1"),
+                "API cookies override saved ones; third-party cookies are dropped");
+        Assert.assertTrue(cp.cookies().stream().allMatch(c -> "localhost".equals(c.domain())), "re-homed on target");
+        Assert.assertEquals(cp.localStorage(), Map.of("quoteDraft", "{}"));
+    }
+
+    @Test
+    public void sendsBrowserRequestHeadersAndOnlyTheHostsCookies() throws IOException {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        HttpServer http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        http.createContext("/", ex -> {
+            String path = ex.getRequestURI().getPath();
+            seen.add(ex.getRequestMethod() + " " + path + " type=" + ex.getRequestHeaders().getFirst("Content-Type")
+                    + " cookie=" + ex.getRequestHeaders().getFirst("Cookie"));
+            if (path.endsWith("/policy")) ex.getResponseHeaders().add("Set-Cookie", "sid=s1; Path=/");
+            if (path.endsWith("/collect")) ex.getResponseHeaders().add("Set-Cookie", "track=t1; Path=/");
+            ex.getResponseHeaders().add("Content-Type", "text/plain");
+            ex.sendResponseHeaders(200, -1);
+            ex.close();
+        });
+        http.start();
+        try {
+            String local = "http://127.0.0.1:" + http.getAddress().getPort();
+            Map<String, String> json = Map.of("Content-Type", "application/json", "Accept", "application/json");
+            TrafficArchive recorded = new TrafficArchive(SITE + "/policy", 0, List.of(
+                    new TrafficArchive.Exchange("LANDING", "Document", "GET", SITE + "/policy", Map.of(), null, 200,
+                            Map.of("Content-Type", "text/html"), "text/html", "", false),
+                    new TrafficArchive.Exchange("DESTINATION", "Fetch", "GET", "https://tracker.example.net/collect",
+                            Map.of(), null, 200, Map.of("Content-Type", "text/plain"), "text/plain", "", false),
+                    new TrafficArchive.Exchange("DATES_FILLED", "XHR", "POST", SITE + "/api/quote", json, "{\"days\":7}",
+                            200, Map.of("Content-Type", "text/plain"), "text/plain", "", false)));
+
+            new ApiFlow(recorded, url -> {
+                URI u = URI.create(url);
+                return local + "/" + u.getHost() + u.getRawPath();
+            }, new CheckpointStore(null)).advanceTo(FunnelStep.DATES_FILLED);
+
+            Assert.assertEquals(seen, List.of(
+                    "GET /travel.example.com/policy type=null cookie=null",
+                    "GET /tracker.example.net/collect type=null cookie=null",
+                    "POST /travel.example.com/api/quote type=application/json cookie=sid=s1"),
+                    "recorded request content type; no first-party cookies to the tracker and back");
+        } finally {
+            http.stop(0);
+        }
+    }
+
+    private static TrafficArchive.Exchange exchange(String step, String type, String method, String url,
+                                                    int status, String setCookie) {
+        Map<String, String> headers = setCookie == null
+                ? Map.of("Content-Type", "text/plain")
+                : Map.of("Content-Type", "text/plain", "Set-Cookie", setCookie);
+        return new TrafficArchive.Exchange(step, type, method, url, null, null, status, headers, "text/plain", "ok", false);
+    }
+
+    private static FlowCheckpoint.CookieData cookie(String name, String value, String domain) {
+        return new FlowCheckpoint.CookieData(name, value, domain, "/", null, true, false, null);
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) {
+            return s.getLocalPort();
+        }
+    }
+}
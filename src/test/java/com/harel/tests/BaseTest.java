@@ -0,0 +1,91 @@
+package com.harel.tests;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.driver.BrowserContexts;
+import com.harel.driver.DriverPool;
+import com.harel.driver.RequestBlocker;
+import com.harel.listeners.FailureArtifactListener;
+import com.harel.listeners.FlightRecorderListener;
+import com.harel.listeners.ShardListener;
+import com.harel.listeners.StreamingResultListener;
+import com.harel.metrics.Metrics;
+import com.harel.metrics.PerfGate;
+import com.harel.replay.ReplayServer;
+import com.harel.replay.TrafficRecorder;
+import com.harel.utils.ElementCache;
+import com.harel.utils.LearnedTimeouts;
+import com.harel.utils.StrategyCache;
+import io.qameta.allure.Allure;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Listeners;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.UnaryOperator;
+
+/**
+ * Base for UI tests: binds a pooled driver to the test thread on first use within a test method
+ * and returns it after the method, so classes and methods can run with TestNG parallel="methods|classes".
+ */
+@Listeners({FlightRecorderListener.class, FailureArtifactListener.class, StreamingResultListener.class,
+        ShardListener.class})
+public abstract class BaseTest {
+
+    private static ReplayServer replayServer;
+
+    @BeforeSuite(alwaysRun = true)
+    public void warmUpDriverPool() throws IOException {
+        if ("replay".equalsIgnoreCase(FrameworkConfig.TARGET)) {
+            replayServer = ReplayServer.fromConfig();
+            replayServer.start();
+        }
+        DriverPool.get().warmUp();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void releaseDriver() {
+        DriverPool.get().release();
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void shutDownDriverPool() throws IOException {
+        if ("record".equalsIgnoreCase(FrameworkConfig.TARGET)) {
+            TrafficRecorder.saveAll(FrameworkConfig.LIVE_URL, Path.of(FrameworkConfig.REPLAY_ARCHIVE));
+        }
+        DriverPool.get().shutdown();
+        if (replayServer != null) replayServer.stop();
+        StrategyCache.shared().save();
+        LearnedTimeouts.shared().save();
+        RequestBlocker.logSummary();
+        BrowserContexts.logSummary();
+        ElementCache.logSummary();
+        exportMetrics();
+        PerfGate.shared().finish();
+    }
+
+    private static void exportMetrics() throws IOException {
+        if (!FrameworkConfig.METRICS_ENABLED) return;
+        Path file = Path.of(FrameworkConfig.METRICS_FILE);
+        if (Metrics.shared().writeJson(file)) {
+            Allure.addAttachment("Latency metrics", "application/json", Files.readString(file), ".json");
+        }
+    }
+
+    /**
+     * Maps a recorded URL to the current target: the local replay server when it runs, else unchanged.
+     */
+    protected static UnaryOperator<String> targetUrls() {
+        return replayServer != null ? replayServer::localUrl : UnaryOperator.identity();
+    }
+
+    /**
+     * The driver bound to the current test thread, acquired from the pool on first call.
+     */
+    protected WebDriver driver() {
+        return DriverPool.get().acquire();
+    }
+}
@@ -0,0 +1,69 @@
+package com.harel.tests;
+
+import com.harel.driver.DriverFactory;
+import com.harel.driver.DriverPool;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A context-isolating DriverPool in a real Chrome: fails when the pool gives up on browser contexts
+ * and falls back to resetting drivers.
+ */
+public class BrowserContextsTest {
+
+    private HttpServer server;
+    private DriverPool pool;
+    private String page;
+
+    @BeforeClass
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "<html><body>context</body></html>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        page = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        pool = new DriverPool(1, DriverFactory::create, true);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stop() {
+        if (pool != null) pool.shutdown();
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    public void eachAcquireGetsAFreshContext() {
+        WebDriver first = pool.acquire();
+        Assert.assertTrue(pool.usesContexts(), "pool fell back to resetting drivers on acquire");
+        first.get(page);
+        ((JavascriptExecutor) first).executeScript("localStorage.setItem('owner', 'first'); document.cookie = 'owner=first';");
+        pool.release();
+        Assert.assertTrue(pool.usesContexts(), "pool fell back to resetting drivers on release");
+
+        WebDriver second = pool.acquire();
+        Assert.assertSame(second, first, "one browser, reused");
+        Assert.assertTrue(pool.usesContexts(), "pool fell back to resetting drivers on the second acquire");
+        second.get(page);
+        Assert.assertNull(((JavascriptExecutor) second).executeScript("return localStorage.getItem('owner');"),
+                "storage of the previous context");
+        Assert.assertEquals(((JavascriptExecutor) second).executeScript("return document.cookie;"), "",
+                "cookies of the previous context");
+        pool.release();
+    }
+}
@@ -0,0 +1,57 @@
+package com.harel.tests;
+
+import com.harel.matrix.DateRange;
+import com.harel.matrix.DateRangeMatrix;
+import com.harel.matrix.DayCountOracle;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class DateRangeMatrixTest {
+
+    @Test
+    public void oracleCountsInclusiveAndExclusive() {
+        LocalDate d = LocalDate.of(2027, 12, 31);
+        Assert.assertEquals(DayCountOracle.expectedDays(d, d, true), 1);
+        Assert.assertEquals(DayCountOracle.expectedDays(d, d.plusDays(29), true), 30);
+        Assert.assertEquals(DayCountOracle.expectedDays(d, d.plusDays(29), false), 29);
+    }
+
+    @Test
+    public void oracleCountsLeapDay() {
+        Assert.assertEquals(DayCountOracle.expectedDays(
+                LocalDate.of(2028, 2, 28), LocalDate.of(2028, 3, 1), true), 3);
+        Assert.assertEquals(DayCountOracle.expectedDays(
+                LocalDate.of(2027, 2, 28), LocalDate.of(2027, 3, 1), true), 2);
+    }
+
+    @Test
+    public void departuresCoverMonthYearAndLeapBoundaries() {
+        DateRangeMatrix m = new DateRangeMatrix(
+                LocalDate.of(2027, 12, 1), LocalDate.of(2028, 3, 31), List.of(1), true);
+        List<LocalDate> deps = m.departures();
+        Assert.assertTrue(deps.contains(LocalDate.of(2027, 12, 31)));
+        Assert.assertTrue(deps.contains(LocalDate.of(2028, 1, 1)));
+        Assert.assertTrue(deps.contains(LocalDate.of(2028, 2, 29)));
+        Assert.assertTrue(deps.contains(LocalDate.of(2028, 3, 1)));
+        Assert.assertTrue(deps.stream().allMatch(d -> !d.isBefore(LocalDate.of(2027, 12, 1))
+                && !d.isAfter(LocalDate.of(2028, 3, 31))));
+    }
+
+    @Test
+    public void streamProducesEveryLengthForEveryDeparture() {
+        DateRangeMatrix m = new DateRangeMatrix(
+                LocalDate.of(2027, 1, 1), LocalDate.of(2027, 12, 31), DateRangeMatrix.DEFAULT_LENGTHS, true);
+        Assert.assertEquals(m.stream().count(), m.size());
+        Assert.assertTrue(m.size() > 1000, "expected thousands of pairs, got " + m.size());
+        Assert.assertTrue(m.stream().allMatch(r -> DateRangeMatrix.DEFAULT_LENGTHS.contains(
+                (int) DayCountOracle.expectedDays(r.depart(), r.ret(), true))));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rangeRejectsReturnBeforeDeparture() {
+        new DateRange(LocalDate.of(2027, 5, 2), LocalDate.of(2027, 5, 1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.harel.tests;
+
+import com.harel.metrics.LatencyHistogram;
+import com.harel.metrics.Metrics;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void quantilesStayWithinBucketResolution() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) h.record(i * MS);
+
+        Assert.assertEquals(h.count(), 1000);
+        assertClose(h.quantileNanos(0.50), 500 * MS);
+        assertClose(h.quantileNanos(0.95), 950 * MS);
+        assertClose(h.quantileNanos(0.99), 990 * MS);
+        Assert.assertEquals(h.quantileNanos(1.0), 1000 * MS);
+    }
+
+    @Test
+    public void emptyAndTinyValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        Assert.assertEquals(h.snapshot().count(), 0);
+        Assert.assertEquals(h.quantileNanos(0.99), 0);
+        h.record(0);
+        h.record(-5);
+        Assert.assertEquals(h.quantileNanos(0.5), 0);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void commandsAreChargedToTheCurrentStep() {
+        Metrics m = new Metrics();
+        m.command("WebDriver.get", MS);
+        try (Metrics.StepTimer ignored = m.step("DATES")) {
+            m.command("WebElement.click", MS);
+            m.command("WebElement.click", 2 * MS);
+        }
+        Metrics.Report r = m.report();
+        Assert.assertEquals(r.steps().get("DATES").roundTrips(), 2);
+        Assert.assertEquals(r.steps().get("DATES").latency().count(), 1);
+        Assert.assertEquals(r.commands().get("WebElement.click").count(), 2);
+        Assert.assertEquals(r.commands().get("WebDriver.get").count(), 1);
+    }
+
+    private static void assertClose(long actual, long expected) {
+        Assert.assertTrue(actual >= expected && actual <= expected * 1.13,
+                "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,70 @@
+package com.harel.tests;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.utils.Deadline;
+import com.harel.utils.LearnedTimeouts;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class LearnedTimeoutsTest {
+
+    private static final By HEADER = By.xpath("//h2");
+    private static final Duration EXPLICIT = Duration.ofSeconds(FrameworkConfig.EXPLICIT_TIMEOUT_SEC);
+
+    @Test
+    public void learnsFromP99AndSurvivesReload() throws IOException {
+        Path file = Files.createTempDirectory("waits").resolve("wait-latency.properties");
+        LearnedTimeouts t = new LearnedTimeouts(file);
+        Assert.assertEquals(t.timeoutFor(HEADER), EXPLICIT, "no history yet");
+
+        for (int i = 0; i < FrameworkConfig.WAIT_MIN_SAMPLES; i++) t.record(HEADER, 500_000_000L);
+        long expected = (long) (500 * FrameworkConfig.WAIT_HEADROOM) + FrameworkConfig.WAIT_FLOOR_MS;
+        assertNear(t.timeoutFor(HEADER), expected);
+
+        t.save();
+        LearnedTimeouts reloaded = new LearnedTimeouts(file);
+        assertNear(reloaded.timeoutFor(HEADER), expected);
+        Assert.assertEquals(reloaded.timeoutFor(By.id("other")), EXPLICIT);
+    }
+
+    @Test
+    public void slowHistoryIsCappedAtExplicitTimeout() throws IOException {
+        LearnedTimeouts t = new LearnedTimeouts(Files.createTempDirectory("waits").resolve("w.properties"));
+        for (int i = 0; i < FrameworkConfig.WAIT_MIN_SAMPLES; i++) t.record(HEADER, EXPLICIT.toNanos());
+        Assert.assertEquals(t.timeoutFor(HEADER), EXPLICIT);
+    }
+
+    @Test
+    public void historyIsKeptPerTarget() throws IOException {
+        Path file = Files.createTempDirectory("waits").resolve("w.properties");
+        LearnedTimeouts replay = new LearnedTimeouts(file, "localhost:8089");
+        for (int i = 0; i < FrameworkConfig.WAIT_MIN_SAMPLES; i++) replay.record(HEADER, 50_000_000L);
+        replay.save();
+
+        Assert.assertEquals(new LearnedTimeouts(file, "digital.harel-group.co.il").timeoutFor(HEADER), EXPLICIT,
+                "replay history does not shorten live waits");
+        Assert.assertTrue(new LearnedTimeouts(file, "localhost:8089").timeoutFor(HEADER).compareTo(EXPLICIT) < 0);
+    }
+
+    @Test
+    public void deadlineCapsTimeouts() {
+        Deadline d = Deadline.after(Duration.ofSeconds(2));
+        Assert.assertTrue(d.cap(EXPLICIT).compareTo(Duration.ofSeconds(2)) <= 0);
+        Assert.assertEquals(d.cap(Duration.ofMillis(100)), Duration.ofMillis(100));
+        Assert.assertFalse(d.expired());
+        Assert.assertFalse(Deadline.none().expired());
+        Assert.assertEquals(Deadline.none().cap(EXPLICIT), EXPLICIT);
+        Assert.assertTrue(Deadline.after(Duration.ofNanos(1)).cap(EXPLICIT).toMillis() <= 1);
+    }
+
+    private static void assertNear(Duration actual, long expectedMillis) {
+        Assert.assertTrue(Math.abs(actual.toMillis() - expectedMillis) <= expectedMillis * 0.1,
+                "expected ~" + expectedMillis + " ms, was " + actual.toMillis());
+    }
+}
@@ -0,0 +1,57 @@
+package com.harel.tests;
+
+import com.harel.locators.LocatorValidator;
+import com.harel.locators.TravelLocators;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LocatorValidatorTest {
+
+    private static final String DATES = """
+            <html xmlns="http://www.w3.org/1999/xhtml"><body>
+              <input placeholder="dd/mm/yyyy"/><input placeholder="dd/mm/yyyy"/>
+              <span> סה"כ: 30 ימים</span>
+              <div class="card">ארה"ב</div>
+            </body></html>
+            """;
+
+    @Test
+    public void reportsMissingAmbiguousAndFoundLocators() throws IOException {
+        Path dir = Files.createTempDirectory("dom");
+        Files.writeString(dir.resolve("DATES.xhtml"), DATES);
+        Files.writeString(dir.resolve("BROKEN.xhtml"), "<html><body>");
+
+        Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("departure", TravelLocators.departureDateField);
+        locators.put("totalDays", TravelLocators.TOTAL_DAYS_TEXT);
+        locators.put("anyDate", By.xpath("//input[@placeholder='dd/mm/yyyy']"));
+        locators.put("toDates", TravelLocators.TO_DATES_BTN);
+        locators.put("css", By.cssSelector(".card"));
+
+        List<LocatorValidator.Finding> findings = LocatorValidator.fromDirectory(dir, 1_000).validate(locators);
+
+        Assert.assertEquals(findings.get(0).status(), LocatorValidator.Status.OK);
+        Assert.assertEquals(findings.get(1).status(), LocatorValidator.Status.OK);
+        Assert.assertEquals(findings.get(2).status(), LocatorValidator.Status.AMBIGUOUS);
+        Assert.assertEquals(findings.get(3).status(), LocatorValidator.Status.MISSING);
+        Assert.assertTrue(findings.get(3).warnings().contains("generated jss class name"));
+        Assert.assertEquals(findings.get(4).status(), LocatorValidator.Status.SKIPPED);
+        Assert.assertEquals(findings.get(0).matches(), Map.of("DATES", 1), "unparsable snapshots are skipped");
+        Assert.assertFalse(LocatorValidator.report(findings));
+    }
+
+    @Test
+    public void findsEveryTravelLocatorField() {
+        Map<String, By> all = LocatorValidator.locators(TravelLocators.class);
+        Assert.assertEquals(all.size(), 8);
+        Assert.assertTrue(all.containsKey("PASSENGERS_HEADER"));
+    }
+}
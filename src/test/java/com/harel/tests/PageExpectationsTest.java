@@ -0,0 +1,71 @@
+package com.harel.tests;
+
+import com.harel.utils.PageExpectations;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Batched expectations on the local interaction fixture, in-page and through the WebDriver fallback.
+ */
+public class PageExpectationsTest extends BaseTest {
+
+    private static final String FIXTURE = Objects.requireNonNull(
+            PageExpectationsTest.class.getResource("/fixtures/interaction.html")).toString();
+    private static final Duration TIMEOUT = Duration.ofMillis(500);
+
+    @DataProvider
+    public Object[][] locators() {
+        Function<String, By> remote = id -> By.xpath("//*[@id='" + id + "']");
+        return new Object[][]{{"in-page", remote}, {"webdriver", (Function<String, By>) PageExpectationsTest::local}};
+    }
+
+    @Test(dataProvider = "locators")
+    public void listsEveryFailedExpectation(String mode, Function<String, By> by) {
+        driver().get(FIXTURE);
+
+        PageExpectations.Report report = new PageExpectations(driver(), TIMEOUT)
+                .visible(by.apply("buy"), "buy button")
+                .integer(by.apply("total"), 30, 0, "total days")
+                .textContains(by.apply("total"), "999", "total mentions 999")
+                .attribute(by.apply("depart"), "placeholder", "yyyy-mm-dd", "depart placeholder")
+                .visible(by.apply("missing"), "missing element")
+                .check();
+
+        Assert.assertTrue(report.timedOut(), mode);
+        Assert.assertEquals(report.integer(1), 30, mode);
+        Assert.assertEquals(report.failures().stream().map(PageExpectations.Outcome::message).toList(),
+                List.of("total mentions 999", "depart placeholder", "missing element"), mode);
+        Assert.assertEquals(report.get(3).actual(), "dd/mm/yyyy", mode);
+        Assert.assertFalse(report.get(4).found(), mode);
+
+        AssertionError e = Assert.expectThrows(AssertionError.class, report::assertAll);
+        Assert.assertTrue(e.getMessage().startsWith("3 of 5 expectation(s) failed:"), e.getMessage());
+        Assert.assertTrue(e.getMessage().contains("depart placeholder") && e.getMessage().contains("element not found"),
+                e.getMessage());
+    }
+
+    /** A locator that is not Remotable, so PageExpectations has to evaluate it through WebDriver. */
+    private static By local(String id) {
+        By delegate = By.id(id);
+        return new By() {
+            @Override
+            public List<WebElement> findElements(SearchContext context) {
+                return delegate.findElements(context);
+            }
+
+            @Override
+            public String toString() {
+                return "local " + delegate;
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.harel.tests;
+
+import com.harel.visual.PerceptualHash;
+import com.harel.visual.VisualCheck;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PerceptualHashTest {
+
+    @Test
+    public void noiseKeepsHashesCloseAndNewContentMovesThem() {
+        BufferedImage a = page(false);
+        BufferedImage noisy = page(false);
+        for (int x = 0; x < noisy.getWidth(); x += 7) noisy.setRGB(x, 5, 0xfff0f0f0);
+        BufferedImage changed = page(true);
+
+        long[] ha = hashes(a), hn = hashes(noisy), hc = hashes(changed);
+        for (int i = 0; i < ha.length; i++) Assert.assertEquals(PerceptualHash.distance(ha[i], hn[i]), 0, "tile " + i);
+        Assert.assertTrue(PerceptualHash.distance(ha[3], hc[3]) > 0, "tile with the new button");
+        Assert.assertEquals(PerceptualHash.distance(ha[0], hc[0]), 0);
+    }
+
+    @Test
+    public void checkFindsOnlyTheChangedTile() throws IOException {
+        Path dir = Files.createTempDirectory("visual");
+        Path baseline = dir.resolve("baseline"), diff = dir.resolve("diff");
+
+        VisualCheck.Result first = new VisualCheck(baseline, diff, true).check("DATES", page(false));
+        Assert.assertTrue(first.baselineWritten());
+        Assert.assertEquals(first.tiles(), 4);
+
+        Assert.assertTrue(new VisualCheck(baseline, diff, false).check("DATES", page(false)).passed());
+
+        VisualCheck.Result result = new VisualCheck(baseline, diff, false).check("DATES", page(true));
+        Assert.assertFalse(result.passed());
+        Assert.assertEquals(result.regressed().size(), 1);
+        Assert.assertEquals(result.regressed().get(0).col(), 1);
+        Assert.assertEquals(result.regressed().get(0).row(), 1);
+        try (var files = Files.list(diff)) {
+            Assert.assertEquals(files.count(), 1L);
+        }
+    }
+
+    @Test
+    public void missingOrResizedBaselineFailsWithoutRebaselining() throws IOException {
+        Path dir = Files.createTempDirectory("visual");
+        Path baseline = dir.resolve("baseline"), diff = dir.resolve("diff");
+
+        VisualCheck.Result missing = new VisualCheck(baseline, diff, false).check("DATES", page(false));
+        Assert.assertFalse(missing.passed());
+        Assert.assertFalse(missing.baselineWritten());
+        Assert.assertNotNull(missing.mismatch());
+        Assert.assertFalse(Files.exists(baseline.resolve("DATES.json")), "no silent baseline");
+
+        new VisualCheck(baseline, diff, true).check("DATES", page(false));
+        byte[] stored = Files.readAllBytes(baseline.resolve("DATES.json"));
+        VisualCheck.Result resized = new VisualCheck(baseline, diff, false)
+                .check("DATES", page(false).getSubimage(0, 0, 128, 96));
+        Assert.assertFalse(resized.passed());
+        Assert.assertTrue(resized.mismatch().contains("128x96"), resized.mismatch());
+        Assert.assertEquals(Files.readAllBytes(baseline.resolve("DATES.json")), stored, "baseline kept");
+    }
+
+    /** 128×128 white page (2×2 tiles of 64 px) with text-like bars, optionally a dark button bottom-right. */
+    private static BufferedImage page(boolean withButton) {
+        BufferedImage img = new BufferedImage(128, 128, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 128, 128);
+        g.setColor(Color.DARK_GRAY);
+        for (int y = 10; y < 50; y += 12) g.fillRect(70, y, 40, 6);
+        if (withButton) {
+            g.setColor(new Color(20, 60, 160));
+            g.fillRect(72, 80, 40, 24);
+        }
+        g.dispose();
+        return img;
+    }
+
+    private static long[] hashes(BufferedImage img) {
+        int w = img.getWidth(), h = img.getHeight();
+        return VisualCheck.hashTiles(img.getRGB(0, 0, w, h, null, 0, w), w, h, 64);
+    }
+}
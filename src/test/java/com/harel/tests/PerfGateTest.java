@@ -0,0 +1,48 @@
+package com.harel.tests;
+
+import com.harel.metrics.PerfGate;
+import com.harel.metrics.WebPerfCollector;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class PerfGateTest {
+
+    @Test
+    public void stepValuesUseDeltasForCounters() {
+        Map<String, Double> v = WebPerfCollector.stepValues(
+                Map.of("ScriptDuration", 100.0, "Nodes", 500.0, "LayoutCount", 40.0),
+                Map.of("ScriptDuration", 130.0, "Nodes", 650.0, "LayoutCount", 3.0));
+        Assert.assertEquals(v.get("ScriptDuration"), 30.0);
+        Assert.assertEquals(v.get("Nodes"), 650.0);
+        Assert.assertEquals(v.get("LayoutCount"), 3.0, "counter reset by a new document counts from zero");
+    }
+
+    @Test
+    public void comparesMediansAgainstBaseline() {
+        PerfGate gate = new PerfGate(Path.of("unused.json"));
+        for (double lcp : new double[] {900, 1000, 5000}) gate.record("DATES", Map.of("lcp", lcp, "longTasks", 0.0));
+        Assert.assertEquals(gate.medians().get("DATES").get("lcp"), 1000.0);
+
+        PerfGate.Baseline base = new PerfGate.Baseline(0, Map.of("DATES", Map.of("lcp", 700.0, "longTasks", 0.0)));
+        List<PerfGate.Regression> r = gate.compare(base);
+        Assert.assertEquals(r.size(), 1);
+        Assert.assertEquals(r.get(0).metric(), "lcp");
+
+        Assert.assertTrue(gate.compare(new PerfGate.Baseline(0, Map.of("DATES", Map.of("lcp", 900.0)))).isEmpty());
+    }
+
+    @Test
+    public void missingBaselineIsNotSeededFromTheRun() throws IOException {
+        Path file = Files.createTempDirectory("perf").resolve("baseline.json");
+        PerfGate gate = new PerfGate(file);
+        gate.record("DATES", Map.of("lcp", 5000.0));
+        gate.finish();
+        Assert.assertFalse(Files.exists(file), "baseline written without perf.baseline.update");
+    }
+}
@@ -0,0 +1,124 @@
+package com.harel.tests;
+
+import com.harel.replay.ReplayServer;
+import com.harel.replay.TrafficArchive;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReplayServer and TrafficArchive against a synthetic archive on the JDK HttpServer; no browser involved.
+ */
+public class ReplayServerTest {
+
+    private static final String SITE = "https://site.test";
+    private static final String CDN = "https://cdn.other.test";
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0, 1, 2};
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private TrafficArchive archive;
+    private ReplayServer server;
+
+    @BeforeClass
+    public void start() throws IOException {
+        archive = new TrafficArchive(SITE + "/app", 0, List.of(
+                text("GET", SITE + "/app", 200, "<script src='" + CDN + "/lib.js'></script><a href='" + SITE + "/api/items'>"),
+                text("GET", SITE + "/api/items?page=1", 200, "page1"),
+                text("GET", SITE + "/api/items?page=2", 200, "page2"),
+                text("POST", SITE + "/api/submit", 201, "created"),
+                text("GET", CDN + "/lib.js", 200, "lib"),
+                text("GET", SITE + "/seq", 200, "first"),
+                text("GET", SITE + "/seq", 200, "second"),
+                new TrafficArchive.Exchange(null, "Other", "GET", SITE + "/old", null, null, 302,
+                        Map.of("Location", SITE + "/app"), null, "", false),
+                new TrafficArchive.Exchange(null, "XHR", "POST", SITE + "/login", null, null, 200,
+                        Map.of("Set-Cookie", "session=abc; Path=/\nprefs=dark; Path=/"), null, "", false),
+                new TrafficArchive.Exchange(null, "Image", "GET", SITE + "/logo.png", null, null, 200,
+                        Map.of("Content-Type", "image/png"), "image/png", Base64.getEncoder().encodeToString(PNG), true)));
+        server = new ReplayServer(archive, ApiFlowTest.freePort(), 0, 0);
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stop() {
+        if (server != null) server.stop();
+    }
+
+    @Test
+    public void matchesOnQueryThenPathThenAnyMethod() throws Exception {
+        Assert.assertEquals(get("/api/items?page=2").body(), "page2", "method + host + path + query");
+        HttpResponse<String> noQuery = get("/api/items?page=9");
+        Assert.assertEquals(noQuery.statusCode(), 200, "falls back to method + host + path");
+        Assert.assertTrue(List.of("page1", "page2").contains(noQuery.body()));
+        HttpResponse<String> otherMethod = get("/api/submit");
+        Assert.assertEquals(otherMethod.statusCode(), 201, "falls back to host + path for any method");
+        Assert.assertEquals(otherMethod.body(), "created");
+        Assert.assertEquals(get("/missing").statusCode(), 404);
+    }
+
+    @Test
+    public void servesOtherHostsUnderPrefixAndCyclesRepeats() throws Exception {
+        Assert.assertEquals(get("/__host/cdn.other.test/lib.js").body(), "lib");
+        List<String> seq = List.of(get("/seq").body(), get("/seq").body(), get("/seq").body());
+        Assert.assertEquals(seq, List.of("first", "second", "first"));
+        HttpResponse<byte[]> png = http.send(request("/logo.png").build(), HttpResponse.BodyHandlers.ofByteArray());
+        Assert.assertEquals(png.body(), PNG, "base64 bodies served as bytes");
+    }
+
+    @Test
+    public void rewritesRecordedUrls() throws Exception {
+        String origin = server.origin();
+        Assert.assertEquals(server.localUrl(SITE + "/app?x=1#/dates"), origin + "/app?x=1#/dates");
+        Assert.assertEquals(server.localUrl(CDN + "/lib.js"), origin + "/__host/cdn.other.test/lib.js");
+
+        String page = get("/app").body();
+        Assert.assertTrue(page.contains(origin + "/__host/cdn.other.test/lib.js"), page);
+        Assert.assertTrue(page.contains(origin + "/api/items"), page);
+        Assert.assertFalse(page.contains("https://"), page);
+
+        HttpResponse<String> redirect = get("/old");
+        Assert.assertEquals(redirect.statusCode(), 302);
+        Assert.assertEquals(redirect.headers().firstValue("Location").orElse(null), origin + "/app");
+    }
+
+    @Test
+    public void splitsRepeatedHeaders() throws Exception {
+        HttpResponse<String> login = http.send(request("/login").POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        Assert.assertEquals(login.statusCode(), 200);
+        Assert.assertEquals(login.headers().allValues("Set-Cookie"), List.of("session=abc; Path=/", "prefs=dark; Path=/"));
+    }
+
+    @Test
+    public void archiveRoundTrips() throws IOException {
+        Path file = Files.createTempDirectory("replay").resolve("nested/archive.json");
+        archive.save(file);
+        Assert.assertEquals(TrafficArchive.load(file), archive);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(request(path).build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(server.origin() + path));
+    }
+
+    private static TrafficArchive.Exchange text(String method, String url, int status, String body) {
+        return new TrafficArchive.Exchange("LANDING", "Document", method, url, null, null, status,
+                Map.of("Content-Type", "text/html; charset=utf-8"), "text/html", body, false);
+    }
+}
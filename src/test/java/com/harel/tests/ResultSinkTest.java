@@ -0,0 +1,69 @@
+package com.harel.tests;
+
+import com.harel.report.ReportMerger;
+import com.harel.report.ResultSink;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ResultSinkTest {
+
+    @Test
+    public void streamedEventsMergeIntoExtentAndAllure() throws IOException {
+        Path dir = Files.createTempDirectory("results");
+        ResultSink sink = new ResultSink(dir.resolve("results.ndjson"));
+        long now = System.currentTimeMillis();
+
+        ResultSink.enterTest("FlowTest.buy");
+        sink.step("destination", "PASSED", now, 120, null);
+        sink.step("dates", "FAILED", now + 120, 80, "TimeoutException: dates");
+        ResultSink.enterTest(null);
+        sink.test("FlowTest.buy", "FAILED", now, 250, "java.lang.AssertionError: boom\n\tat x", Map.of());
+
+        ResultSink.enterTest("FlowTest.killed");
+        sink.step("destination", "PASSED", now, 90, null); // no test event: the JVM "died"
+        ResultSink.enterTest(null);
+        sink.step("destination", "PASSED", now, 100, null); // outside any test
+
+        Assert.assertTrue(sink.flush(5_000), "events flushed");
+        sink.close();
+        List<String> lines = Files.readAllLines(sink.file());
+        Assert.assertEquals(lines.size(), 5);
+        Files.writeString(sink.file(), "{\"type\":\"st", StandardOpenOption.APPEND); // torn last line
+
+        Path extent = dir.resolve("extent/index.html");
+        Path allure = dir.resolve("allure");
+        ReportMerger merger = new ReportMerger(extent, allure);
+        merger.mergeDirectory(dir);
+        merger.finish();
+
+        String html = Files.readString(extent);
+        Assert.assertTrue(html.contains("FlowTest.buy"));
+        Assert.assertTrue(html.contains("FlowTest.killed"), "interrupted test reported");
+        Assert.assertTrue(html.contains("Unattributed steps"));
+        try (Stream<Path> files = Files.list(allure)) {
+            Assert.assertEquals(files.filter(p -> p.toString().endsWith("-result.json")).count(), 2);
+        }
+    }
+
+    @Test
+    public void startingARunDeletesResultsOfOtherShardLayouts() throws IOException {
+        Path dir = Files.createTempDirectory("results");
+        for (String name : List.of("results.ndjson", "results-shard-2-of-3.ndjson",
+                ResultSink.fileName(0, 2), ResultSink.fileName(1, 2), "notes.txt")) {
+            Files.writeString(dir.resolve(name), "");
+        }
+        ResultSink.deleteStale(dir, 2);
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(files.map(p -> p.getFileName().toString()).sorted().toList(),
+                    List.of("notes.txt", "results-shard-0-of-2.ndjson", "results-shard-1-of-2.ndjson"));
+        }
+    }
+}
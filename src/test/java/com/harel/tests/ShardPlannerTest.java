@@ -0,0 +1,65 @@
+package com.harel.tests;
+
+import com.harel.shard.DurationHistory;
+import com.harel.shard.ShardPlanner;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ShardPlannerTest {
+
+    private static ShardPlanner.Unit unit(String... tests) {
+        return new ShardPlanner.Unit(tests[0], List.of(tests));
+    }
+
+    @Test
+    public void longestFirstBalancesShards() {
+        Map<String, Long> d = Map.of("a", 70L, "b", 60L, "c", 50L, "d", 40L, "e", 30L, "f", 20L, "g", 10L);
+        List<ShardPlanner.Unit> units = new ArrayList<>();
+        d.keySet().stream().sorted().forEach(t -> units.add(unit(t)));
+
+        List<ShardPlanner.Shard> shards = new ShardPlanner(d).plan(units, 3);
+
+        long max = shards.stream().mapToLong(ShardPlanner.Shard::estimatedMillis).max().orElseThrow();
+        long min = shards.stream().mapToLong(ShardPlanner.Shard::estimatedMillis).min().orElseThrow();
+        Assert.assertEquals(shards.stream().mapToLong(ShardPlanner.Shard::estimatedMillis).sum(), 280);
+        Assert.assertTrue(max - min <= 10, "unbalanced: " + shards);
+        Assert.assertEquals(shards.stream().mapToInt(s -> s.units().size()).sum(), 7);
+    }
+
+    @Test
+    public void dependentTestsStayTogetherAndUnknownUseMedian() {
+        Map<String, Long> d = Map.of("a", 100L, "b", 10L, "c", 30L);
+        ShardPlanner planner = new ShardPlanner(d);
+        Assert.assertEquals(planner.estimate(unit("x")), 30);
+        Assert.assertEquals(planner.estimate(unit("a", "b")), 110);
+
+        List<ShardPlanner.Shard> shards = planner.plan(List.of(unit("a", "b"), unit("c"), unit("x")), 2);
+        Assert.assertEquals(shards.get(0).units(), List.of(unit("a", "b")));
+        Assert.assertEquals(shards.get(1).estimatedMillis(), 60);
+    }
+
+    @Test
+    public void planIsDeterministic() {
+        List<ShardPlanner.Unit> units = List.of(unit("a"), unit("b"), unit("c"), unit("d"));
+        Assert.assertEquals(new ShardPlanner(Map.of()).plan(units, 2), new ShardPlanner(Map.of()).plan(units, 2));
+    }
+
+    @Test
+    public void historyBlendsAndPersists() throws Exception {
+        Path file = Files.createTempDirectory("durations").resolve("d.properties");
+        DurationHistory h = new DurationHistory(file);
+        h.record("T.a", 1000);
+        h.save();
+        DurationHistory next = new DurationHistory(file);
+        Assert.assertEquals(next.durations().get("T.a"), Long.valueOf(1000));
+        next.record("T.a", 2000);
+        next.save();
+        Assert.assertEquals(new DurationHistory(file).durations().get("T.a"), Long.valueOf(1300));
+    }
+}
@@ -0,0 +1,72 @@
+package com.harel.tests;
+
+import com.harel.utils.Clicks;
+import com.harel.utils.SendKeys;
+import com.harel.utils.StrategyCache;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * StrategyCache ordering, demotion and persistence; no browser involved.
+ */
+public class StrategyCacheTest {
+
+    private static final By FIELD = By.id("depart");
+    private static final List<Clicks.Path> CLICKS = List.of(Clicks.Path.NATIVE, Clicks.Path.ACTIONS, Clicks.Path.JS);
+    private static final List<SendKeys.Path> INPUTS = List.of(SendKeys.Path.FAST, SendKeys.Path.TYPE, SendKeys.Path.JS_SET);
+
+    @Test
+    public void remembersAndDemotesThePreferredPath() throws IOException {
+        StrategyCache cache = new StrategyCache(tempFile());
+        Assert.assertEquals(cache.order("DATES", FIELD, CLICKS), CLICKS, "default order without history");
+
+        cache.success("DATES", FIELD, Clicks.Path.JS);
+        Assert.assertEquals(cache.order("DATES", FIELD, CLICKS),
+                List.of(Clicks.Path.JS, Clicks.Path.NATIVE, Clicks.Path.ACTIONS));
+        Assert.assertEquals(cache.order("PASSENGERS", FIELD, CLICKS), CLICKS, "scoped to the page");
+
+        cache.failure("DATES", FIELD, Clicks.Path.NATIVE);
+        Assert.assertEquals(cache.order("DATES", FIELD, CLICKS).get(0), Clicks.Path.JS, "only the preferred path is demoted");
+        cache.failure("DATES", FIELD, Clicks.Path.JS);
+        Assert.assertEquals(cache.order("DATES", FIELD, CLICKS), CLICKS);
+    }
+
+    @Test
+    public void keepsClickAndInputPathsOfOneLocatorApart() throws IOException {
+        StrategyCache cache = new StrategyCache(tempFile());
+        cache.success("DATES", FIELD, Clicks.Path.JS);
+        cache.success("DATES", FIELD, SendKeys.Path.JS_SET);
+
+        Assert.assertEquals(cache.order("DATES", FIELD, CLICKS).get(0), Clicks.Path.JS);
+        Assert.assertEquals(cache.order("DATES", FIELD, INPUTS).get(0), SendKeys.Path.JS_SET);
+        cache.failure("DATES", FIELD, SendKeys.Path.JS_SET);
+        Assert.assertEquals(cache.order("DATES", FIELD, CLICKS).get(0), Clicks.Path.JS, "input demotion leaves clicks alone");
+    }
+
+    @Test
+    public void roundTripsThroughTheFile() throws IOException {
+        Path file = tempFile();
+        StrategyCache cache = new StrategyCache(file);
+        cache.success("DATES", FIELD, Clicks.Path.ACTIONS);
+        cache.success("DATES", FIELD, SendKeys.Path.TYPE);
+        cache.save();
+
+        StrategyCache loaded = new StrategyCache(file);
+        Assert.assertEquals(loaded.order("DATES", FIELD, CLICKS).get(0), Clicks.Path.ACTIONS);
+        Assert.assertEquals(loaded.order("DATES", FIELD, INPUTS).get(0), SendKeys.Path.TYPE);
+
+        loaded.failure("DATES", FIELD, Clicks.Path.ACTIONS);
+        loaded.save();
+        Assert.assertEquals(new StrategyCache(file).order("DATES", FIELD, CLICKS), CLICKS, "demotion is persisted");
+    }
+
+    private static Path tempFile() throws IOException {
+        return Files.createTempDirectory("strategies").resolve("nested/strategies.properties");
+    }
+}
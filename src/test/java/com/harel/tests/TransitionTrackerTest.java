@@ -0,0 +1,76 @@
+package com.harel.tests;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.utils.TransitionTracker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class TransitionTrackerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    @Test
+    public void idlePageStillWaitsQuietWindowForLateRequests() throws Exception {
+        TransitionTracker t = new TransitionTracker();
+        Thread.sleep(FrameworkConfig.SETTLE_QUIET_MS * 2); // page idle well before the step ends
+
+        // The click's XHR is reported shortly after the step body returned, and finishes later.
+        CompletableFuture<Void> events = CompletableFuture.runAsync(() -> {
+            sleep(FrameworkConfig.SETTLE_QUIET_MS / 3);
+            t.requestSent("1", "XHR");
+            sleep(200);
+            t.requestDone("1");
+        });
+        TransitionTracker.Settled s = t.awaitSettled(t.mark(), false, TIMEOUT);
+        events.get(1, TimeUnit.SECONDS);
+
+        Assert.assertTrue(s.settled(), s.toString());
+        Assert.assertTrue(s.millis() >= 200 + FrameworkConfig.SETTLE_QUIET_MS, "waited for the late XHR: " + s);
+    }
+
+    @Test
+    public void ignoresUntrackedTypes() {
+        TransitionTracker t = new TransitionTracker();
+        t.requestSent("img", "Image");
+        TransitionTracker.Settled s = t.awaitSettled(t.mark(), false, TIMEOUT);
+        Assert.assertTrue(s.settled(), s.toString());
+        Assert.assertEquals(s.pending(), 0);
+    }
+
+    @Test
+    public void navigatingStepWaitsForRouteChange() throws Exception {
+        TransitionTracker t = new TransitionTracker();
+        long mark = t.mark();
+        CompletableFuture<Void> events = CompletableFuture.runAsync(() -> {
+            sleep(300);
+            t.routeChanged("https://example.test/#/dates");
+        });
+        TransitionTracker.Settled s = t.awaitSettled(mark, true, TIMEOUT);
+        events.get(1, TimeUnit.SECONDS);
+
+        Assert.assertTrue(s.settled(), s.toString());
+        Assert.assertTrue(s.routeChanged());
+        Assert.assertEquals(s.route(), "https://example.test/#/dates");
+        Assert.assertTrue(s.millis() >= 300, s.toString());
+    }
+
+    @Test
+    public void missingRouteChangeTimesOut() {
+        TransitionTracker t = new TransitionTracker();
+        TransitionTracker.Settled s = t.awaitSettled(t.mark(), true, Duration.ofMillis(400));
+        Assert.assertFalse(s.settled());
+        Assert.assertFalse(s.routeChanged());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
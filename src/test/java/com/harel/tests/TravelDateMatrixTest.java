@@ -0,0 +1,32 @@
+package com.harel.tests;
+
+import com.harel.config.FrameworkConfig;
+import com.harel.matrix.DateRange;
+import com.harel.matrix.DateRangeMatrix;
+import com.harel.matrix.MatrixRunner;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Date-range matrix over the live dates step. Opt-in: -Dtest.excludedGroups=none -Dgroups=matrix
+ */
+public class TravelDateMatrixTest extends BaseTest {
+
+    @Test(groups = "matrix", description = "מטריצת טווחי תאריכים מול חישוב ימים צפוי")
+    public void totalDaysMatchOracleAcrossMatrix() {
+        LocalDate first = LocalDate.now().plusDays(FrameworkConfig.MATRIX_LEAD_DAYS);
+        DateRangeMatrix matrix = new DateRangeMatrix(first, first.plusDays(FrameworkConfig.MATRIX_WINDOW_DAYS),
+                DateRangeMatrix.DEFAULT_LENGTHS, FrameworkConfig.COUNT_INCLUSIVE);
+        Stream<DateRange> pairs = FrameworkConfig.MATRIX_LIMIT > 0
+                ? matrix.stream().limit(FrameworkConfig.MATRIX_LIMIT)
+                : matrix.stream();
+
+        MatrixRunner.Summary summary = MatrixRunner.fromConfig().run(pairs);
+
+        Assert.assertTrue(summary.total() > 0, "Matrix produced no results");
+        Assert.assertEquals(summary.failed(), 0, summary.failed() + " pair(s) failed, see " + FrameworkConfig.MATRIX_RESULTS);
+    }
+}
@@ -1,26 +1,19 @@
 package com.harel.tests;
 
+import com.harel.actions.FunnelStep;
 import com.harel.actions.TravelActions;
 import com.harel.config.FrameworkConfig;
-import com.harel.driver.DriverFactory;
-import org.openqa.selenium.WebDriver;
 import org.testng.annotations.*;
 
 import java.time.LocalDate;
 
-public class TravelFirstPurchaseTest {
-
-    private WebDriver driver;
-    private TravelActions actions;
+public class TravelFirstPurchaseTest extends BaseTest {
 
     private LocalDate departDate;
     private LocalDate returnDate;
 
     @BeforeClass
     public void setUp() {
-        driver = DriverFactory.createChrome();
-        actions = new TravelActions(driver);
-
         LocalDate today = LocalDate.now();
         departDate = today.plusDays(7);
 
@@ -37,18 +30,27 @@ public class TravelFirstPurchaseTest {
         );
     }
 
-    @AfterClass(alwaysRun = true)
-    public void tearDown() {
-        if (driver != null) driver.quit();
-    }
-
     @Test(description = "E2E: רכישת ביטוח נסיעות - זרימה מלאה")
     public void travelPolicyFirstPurchaseFlow() {
+        TravelActions actions = new TravelActions(driver());
         actions.openBaseUrl(FrameworkConfig.BASE_URL);
         actions.clickFirstPurchase();
         actions.pickAnyContinent();
         actions.goToDates();
         actions.chooseDates(departDate, returnDate);
+        actions.saveCheckpoint();
+        actions.verifyTotalDays(departDate, returnDate);
+        actions.goToPassengers();
+        actions.assertPassengersPage();
+    }
+
+    @Test(description = "מעבר לשלב הנוסעים מנקודת שמירה אחרי בחירת תאריכים",
+            dependsOnMethods = "travelPolicyFirstPurchaseFlow")
+    public void passengersStepFromCheckpoint() {
+        TravelActions actions = new TravelActions(driver());
+        actions.restoreCheckpoint(FunnelStep.DATES_FILLED);
+        // The checkpoint restores session and route; the date fields are React state, so fill them again.
+        actions.chooseDates(departDate, returnDate);
         actions.verifyTotalDays(departDate, returnDate);
         actions.goToPassengers();
         actions.assertPassengersPage();
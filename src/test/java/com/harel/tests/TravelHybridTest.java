@@ -0,0 +1,39 @@
+package com.harel.tests;
+
+import com.harel.actions.FunnelStep;
+import com.harel.actions.TravelActions;
+import com.harel.checkpoint.CheckpointStore;
+import com.harel.config.FrameworkConfig;
+import com.harel.hybrid.ApiFlow;
+import com.harel.replay.TrafficArchive;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Passengers step with everything before it done over HTTP (ApiFlow). Needs a recorded archive
+ * (-Dtarget=record) and a DATES_FILLED checkpoint (-Dcheckpoint.persist=true) from an earlier UI run;
+ * ApiFlowTest covers the flow itself offline.
+ */
+public class TravelHybridTest extends BaseTest {
+
+    @Test(description = "שלב הנוסעים אחרי מעבר בשלבים הקודמים דרך API")
+    public void passengersStepAfterApiFlow() throws IOException {
+        Path archive = Path.of(FrameworkConfig.REPLAY_ARCHIVE);
+        // Persisted checkpoints only, so the outcome does not depend on which tests ran first in this JVM.
+        CheckpointStore persisted = new CheckpointStore(Path.of(FrameworkConfig.CHECKPOINT_DIR));
+        if (!Files.exists(archive) || persisted.get(FunnelStep.DATES_FILLED.name()).isEmpty()) {
+            throw new SkipException("Hybrid flow needs " + archive + " and a persisted DATES_FILLED checkpoint");
+        }
+        ApiFlow api = new ApiFlow(TrafficArchive.load(archive), targetUrls(), persisted)
+                .advanceTo(FunnelStep.DATES_FILLED);
+
+        TravelActions actions = new TravelActions(driver());
+        api.inject(driver(), FunnelStep.DATES_FILLED);
+        actions.goToPassengers();
+        actions.assertPassengersPage();
+    }
+}